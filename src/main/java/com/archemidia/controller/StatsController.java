@@ -0,0 +1,48 @@
+package com.archemidia.controller;
+import com.archemidia.handler.GameWebSocketHandler;
+import com.archemidia.network.InboundQueue;
+import com.archemidia.network.OutboundQueue;
+import com.archemidia.service.GameService;
+import com.archemidia.service.GameTickLoop;
+import com.archemidia.service.WorldGeneratorService;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+
+@RestController
+public class StatsController {
+    private final GameTickLoop tickLoop;
+    private final GameWebSocketHandler wsHandler;
+    private final WorldGeneratorService worldGen;
+    private final GameService gameService;
+    public StatsController(GameTickLoop tickLoop, GameWebSocketHandler wsHandler, WorldGeneratorService worldGen, GameService gameService) {
+        this.tickLoop = tickLoop;
+        this.wsHandler = wsHandler;
+        this.worldGen = worldGen;
+        this.gameService = gameService;
+    }
+
+    @GetMapping("/api/stats/tick")
+    public GameTickLoop.TickTimings getTickTimings() {
+        return tickLoop.getTimings();
+    }
+
+    @GetMapping("/api/stats/sessions")
+    public List<OutboundQueue.Stats> getSessionQueues() {
+        return wsHandler.getOutboundStats();
+    }
+
+    @GetMapping("/api/stats/input")
+    public InboundQueue.Stats getInputQueue() {
+        return wsHandler.getInboundStats();
+    }
+
+    @GetMapping("/api/stats/map")
+    public WorldGeneratorService.CacheStats getMapCache() {
+        return worldGen.getCacheStats();
+    }
+
+    @GetMapping("/api/stats/ai")
+    public GameService.AiStats getAi() {
+        return gameService.getAiStats();
+    }
+}
@@ -1,15 +1,48 @@
 package com.archemidia.controller;
 import com.archemidia.service.WorldGeneratorService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.util.List;
+
+import java.time.Duration;
 
 @RestController
 public class WorldController {
     private final WorldGeneratorService worldGen;
-    public WorldController(WorldGeneratorService wg) { this.worldGen = wg; }
+    private final CacheControl cacheControl;
+
+    public WorldController(WorldGeneratorService wg, @Value("${game.map.chunk-max-age-seconds:3600}") long maxAgeSeconds) {
+        this.worldGen = wg;
+        this.cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic();
+    }
+
+    // [NEW] Raw terrain bytes (row-major, one signed byte per tile) for clients sending Accept: application/octet-stream
+    @GetMapping(value = "/api/map/chunk", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> getChunkBinary(@RequestParam int x, @RequestParam int y, @RequestParam(defaultValue = "16") int size) {
+        if (!isValidSize(size)) return ResponseEntity.badRequest().build();
+        WorldGeneratorService.TerrainChunk chunk = worldGen.getChunk(x, y, size);
+        return cacheable(chunk.etag()).body(chunk.tiles());
+    }
+
+    // Nested JSON rows, kept for older clients; pre-rendered next to the bytes
+    @GetMapping(value = "/api/map/chunk", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getChunk(@RequestParam int x, @RequestParam int y, @RequestParam(defaultValue = "16") int size) {
+        if (!isValidSize(size)) return ResponseEntity.badRequest().build();
+        WorldGeneratorService.TerrainChunk chunk = worldGen.getChunk(x, y, size);
+        return cacheable("W/" + chunk.etag()).contentType(MediaType.APPLICATION_JSON).body(chunk.json());
+    }
+
+    // Both forms share one URL, so caches must key on Accept. Spring answers If-None-Match
+    // from the ETag with a 304 that keeps these headers.
+    private ResponseEntity.BodyBuilder cacheable(String etag) {
+        return ResponseEntity.ok().cacheControl(cacheControl).varyBy(HttpHeaders.ACCEPT).eTag(etag);
+    }
 
-    @GetMapping("/api/map/chunk")
-    public List<List<Integer>> getChunk(@RequestParam int x, @RequestParam int y, @RequestParam(defaultValue = "16") int size) {
-        return worldGen.generateChunk(x, y, size, size);
+    // Answered here rather than thrown: the /error page is not reachable for anonymous clients
+    private static boolean isValidSize(int size) {
+        return size >= 1 && size <= WorldGeneratorService.MAX_CHUNK_SIZE;
     }
-}
\ No newline at end of file
+}
@@ -1,52 +1,156 @@
 package com.archemidia.handler;
 
 import com.archemidia.model.Monster;
+import com.archemidia.model.MonsterPool;
 import com.archemidia.model.PlayerState;
 import com.archemidia.model.WorldObject;
+import com.archemidia.network.AreaOfInterest;
+import com.archemidia.network.BinaryActionDecoder;
+import com.archemidia.network.BinaryProtocolCodec;
+import com.archemidia.network.ClientActionHandler;
+import com.archemidia.network.ClientConnection;
+import com.archemidia.network.InboundQueue;
+import com.archemidia.network.JsonActionDecoder;
+import com.archemidia.network.JsonProtocolCodec;
+import com.archemidia.network.MonsterSnapshot;
+import com.archemidia.network.OutboundQueue;
+import com.archemidia.network.ProtocolCodec;
+import com.archemidia.network.SnapshotDelta;
+import com.archemidia.network.WorldStream;
 import com.archemidia.service.GameService;
+import com.archemidia.service.GameTickLoop;
 import com.archemidia.service.TimeService;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.archemidia.util.IntList;
+import com.archemidia.util.LongObjectMap;
+import com.archemidia.util.TileKey;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import org.springframework.scheduling.annotation.Scheduled;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
-import java.io.IOException;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 @Component
-public class GameWebSocketHandler extends TextWebSocketHandler {
+public class GameWebSocketHandler extends AbstractWebSocketHandler implements SubProtocolCapable, ClientActionHandler {
+
+    // Clients opt into the binary protocol through Sec-WebSocket-Protocol; anything else gets JSON
+    public static final String JSON_SUBPROTOCOL = "archemidia.json.v1";
 
     private final GameService gameService;
     private final TimeService timeService;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    private final List<WebSocketSession> activeSessions = new CopyOnWriteArrayList<>();
-
-    public GameWebSocketHandler(GameService gameService, TimeService timeService) {
+    private final ProtocolCodec jsonCodec = new JsonProtocolCodec(objectMapper);
+    private final ProtocolCodec binaryCodec = new BinaryProtocolCodec();
+    private final JsonActionDecoder jsonDecoder = new JsonActionDecoder(objectMapper);
+    private final BinaryActionDecoder binaryDecoder = new BinaryActionDecoder();
+
+    private final Map<String, ClientConnection> connections = new ConcurrentHashMap<>();
+    // Decoded actions wait here until the INPUT phase applies them on the tick thread
+    private final InboundQueue inbound;
+    // Reused by the broadcast loop for the per-session monster query
+    private final IntList visibleMonsters = new IntList();
+
+    // --- Delta Snapshots ---
+    // Monster state captured in the SNAPSHOT phase, indexed by pool slot; unchanged monsters keep
+    // their previous instance. Entries of dead slots linger, so readers check the netId (the handle)
+    private MonsterSnapshot[] monsterSnapshots = new MonsterSnapshot[0];
+    private long snapshotTick = 0;
+    private final int keyframeInterval;
+
+    // --- Area of Interest ---
+    private final AreaOfInterest aoi;
+    private final List<Long> enteredCells = new ArrayList<>();
+
+    // --- Initial World Stream ---
+    // Every AOI cell that overlaps the map, as packed cell keys
+    private final long[] worldCells;
+    private final int streamBytesPerTick;
+    private final int streamMaxQueued;
+    private final List<WorldObject> chunkObjects = new ArrayList<>();
+
+    // --- Outbound Queues ---
+    // Socket writes happen here, never on the tick or I/O threads
+    private final ExecutorService senders;
+    private final int outboundHighWaterMark;
+
+    public GameWebSocketHandler(GameService gameService, TimeService timeService, GameTickLoop tickLoop,
+                                @Value("${game.snapshot.keyframe-interval-ticks:100}") int keyframeInterval,
+                                @Value("${game.aoi.cell-tiles:16}") int aoiCellTiles,
+                                @Value("${game.aoi.view-radius-cells:1}") int aoiViewRadius,
+                                @Value("${game.net.sender-threads:2}") int senderThreads,
+                                @Value("${game.net.outbound-high-water-mark:512}") int outboundHighWaterMark,
+                                @Value("${game.input.max-commands-per-tick:2048}") int maxCommandsPerTick,
+                                @Value("${game.stream.bytes-per-tick:16384}") int streamBytesPerTick,
+                                @Value("${game.stream.max-queued-messages:32}") int streamMaxQueued) {
         this.gameService = gameService;
         this.timeService = timeService;
+        this.keyframeInterval = keyframeInterval;
+        this.aoi = new AreaOfInterest(aoiCellTiles, aoiViewRadius);
+        this.worldCells = buildWorldCells();
+        this.streamBytesPerTick = streamBytesPerTick;
+        this.streamMaxQueued = streamMaxQueued;
+        this.outboundHighWaterMark = outboundHighWaterMark;
+        AtomicInteger senderCount = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread t = new Thread(r, "ws-send-" + senderCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.inbound = new InboundQueue(this, maxCommandsPerTick);
+        tickLoop.register(GameTickLoop.Phase.INPUT, tick -> inbound.drain());
+        tickLoop.register(GameTickLoop.Phase.SNAPSHOT, this::captureSnapshot);
+        tickLoop.register(GameTickLoop.Phase.BROADCAST, tick -> broadcastGameLoop());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    @Override
+    public List<String> getSubProtocols() {
+        return List.of(BinaryProtocolCodec.SUBPROTOCOL, JSON_SUBPROTOCOL);
+    }
+
+    // SNAPSHOT phase: freeze the replicated monster fields once for every session
+    private void captureSnapshot(long tick) {
+        MonsterPool pool = gameService.getMonsterPool();
+        MonsterSnapshot[] snapshots = monsterSnapshots;
+        for (int i = 0; i < pool.size(); i++) {
+            int h = pool.handleAt(i), s = MonsterPool.slot(h);
+            if (s >= snapshots.length) snapshots = monsterSnapshots = Arrays.copyOf(snapshots, Math.max(s + 1, snapshots.length * 2));
+            MonsterSnapshot old = snapshots[s];
+            if (old == null || old.netId() != h || !old.matches(pool, s)) snapshots[s] = MonsterSnapshot.of(pool, s);
+        }
+        snapshotTick = tick;
     }
 
-    @Scheduled(fixedRate = 50)
+    // BROADCAST phase of the tick loop, runs at the network rate
     public void broadcastGameLoop() {
-        if (activeSessions.isEmpty()) return;
+        if (connections.isEmpty()) return;
 
-        for (WebSocketSession session : activeSessions) {
-            if (session.isOpen()) {
-                PlayerState p = gameService.getPlayer(session.getId());
+        for (ClientConnection conn : connections.values()) {
+            if (conn.isOpen()) {
+                PlayerState p = gameService.getPlayer(conn.getId());
                 if (p != null) {
-                    try {
-                        sendWorldUpdate(session, p);
-                    } catch (IOException e) {
-                        // Handle disconnects gracefully
-                    }
+                    updateAreaOfInterest(conn, p);
+                    streamWorld(conn);
+                    sendWorldUpdate(conn, p);
                 }
             }
         }
@@ -54,220 +158,279 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-        activeSessions.add(session);
-        gameService.onPlayerConnect(session.getId());
-
-        sendInventoryUpdate(session, gameService.getPlayer(session.getId()));
-        sendAllActiveObjects(session);
+        ProtocolCodec codec = BinaryProtocolCodec.SUBPROTOCOL.equals(session.getAcceptedProtocol()) ? binaryCodec : jsonCodec;
+        ClientConnection conn = new ClientConnection(session, codec, new OutboundQueue(session, senders, outboundHighWaterMark));
+        connections.put(session.getId(), conn);
+        inbound.submit(() -> onJoin(conn));
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
-        activeSessions.remove(session);
-        gameService.onPlayerDisconnect(session.getId());
+        ClientConnection conn = connections.remove(session.getId());
+        if (conn != null) {
+            conn.getOutbound().close();
+            // Queued behind the session's last actions, so those still apply first
+            inbound.submit(() -> onLeave(conn));
+        }
     }
 
-    private void sendAllActiveObjects(WebSocketSession session) throws IOException {
-        Map<String, WorldObject> objects = gameService.getActiveObjects();
-        if (objects.isEmpty()) return;
+    // Tick thread
+    private void onJoin(ClientConnection conn) {
+        PlayerState player = gameService.onPlayerConnect(conn.getId());
+        int tileX = toTile(player.getX()), tileY = toTile(player.getY());
+        // The world stream starts with these cells, so ignore the entered cells
+        aoi.update(conn, tileX, tileY, new ArrayList<>());
+        conn.setWorldStream(new WorldStream(worldCells, aoi.cellOf(tileX), aoi.cellOf(tileY)));
 
-        ObjectNode msg = objectMapper.createObjectNode();
-        msg.put("event", "position_update");
-        ArrayNode arr = msg.putArray("objects");
+        sendInventoryUpdate(conn, player);
+    }
+
+    // Tick thread
+    private void onLeave(ClientConnection conn) {
+        aoi.remove(conn);
+        gameService.onPlayerDisconnect(conn.getId());
+    }
 
-        for (WorldObject obj : objects.values()) {
-            ObjectNode n = arr.addObject();
-            n.put("type", obj.type);
-            n.put("x", obj.x);
-            n.put("y", obj.y);
+    private long[] buildWorldCells() {
+        int min = aoi.cellOf(-GameService.MAP_RADIUS);
+        int max = aoi.cellOf(GameService.MAP_RADIUS);
+        long[] cells = new long[(max - min + 1) * (max - min + 1)];
+        int n = 0;
+        for (int cx = min; cx <= max; cx++) {
+            for (int cy = min; cy <= max; cy++) cells[n++] = TileKey.pack(cx, cy);
         }
+        return cells;
+    }
 
-        synchronized (session) {
-            session.sendMessage(new TextMessage(msg.toString()));
+    /**
+     * Tick thread: sends the next cells of the connection's initial world download, nearest first,
+     * until this tick's byte budget is spent. Pauses while the client is still working through
+     * earlier messages, so a slow link is not pushed towards the outbound high-water mark.
+     */
+    private void streamWorld(ClientConnection conn) {
+        WorldStream stream = conn.getWorldStream();
+        if (stream == null || conn.getOutbound().getDepth() > streamMaxQueued) return;
+
+        int size = aoi.getCellTiles();
+        int budget = streamBytesPerTick;
+        while (budget > 0 && !stream.isDone()) {
+            long cell = stream.nextCell();
+            int cx = TileKey.unpackX(cell), cy = TileKey.unpackY(cell);
+            chunkObjects.clear();
+            gameService.getActiveObjects().collectInRect(cx * size, cy * size, cx * size + size - 1, cy * size + size - 1, chunkObjects);
+            int hash = WorldStream.hash(chunkObjects);
+            if (stream.canSkip(cell, hash, chunkObjects.isEmpty())) {
+                stream.markSkipped();
+                continue;
+            }
+            WebSocketMessage<?> chunk = conn.getCodec().worldChunk(cx, cy, size, hash, chunkObjects);
+            conn.send(chunk);
+            stream.markSent();
+            budget -= chunk.getPayloadLength();
+        }
+        if (stream.isDone()) {
+            conn.send(conn.getCodec().worldReady(stream.getSent(), stream.getSkipped()));
+            conn.setWorldStream(null);
         }
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        ClientConnection conn = connections.get(session.getId());
+        if (conn == null) return;
         try {
-            JsonNode json = objectMapper.readTree(message.getPayload());
-            String action = json.get("action").asText();
-            String sessionId = session.getId();
-
-            if ("request_move".equals(action)) {
-                gameService.processMove(sessionId, json.get("x").asDouble(), json.get("y").asDouble(), json.get("seqId").asLong());
-            }
-            else if ("collect_item".equals(action)) {
-                String itemType = json.get("item").asText();
-                PlayerState p = gameService.processPickup(sessionId, itemType);
-                sendInventoryUpdate(session, p);
-            }
-            else if ("remove_item".equals(action)) {
-                String itemType = json.get("item").asText();
-                int amount = json.has("amount") ? json.get("amount").asInt() : 1;
-                PlayerState p = gameService.processRemoveItem(sessionId, itemType, amount);
-                sendInventoryUpdate(session, p);
-            }
-            else if ("drop_item".equals(action)) {
-                String itemType = json.get("item").asText();
-                GameService.DropResult result = gameService.dropItem(sessionId, itemType);
-
-                if (result != null) {
-                    PlayerState p = gameService.getPlayer(sessionId);
-                    sendInventoryUpdate(session, p);
-
-                    ObjectNode dropMsg = objectMapper.createObjectNode();
-                    dropMsg.put("event", "item_spawn");
-                    dropMsg.put("x", p.getX());
-                    dropMsg.put("y", p.getY());
-
-                    ArrayNode dropsNode = dropMsg.putArray("drops");
-                    ObjectNode dNode = dropsNode.addObject();
-                    dNode.put("type", result.type);
-                    dNode.put("amount", result.amount);
-
-                    TextMessage tm = new TextMessage(dropMsg.toString());
-                    broadcastToAll(tm);
-                }
-            }
-            else if ("craft_item".equals(action)) {
-                String recipe = json.get("recipe").asText();
-                if (gameService.processCrafting(sessionId, recipe)) {
-                    sendInventoryUpdate(session, gameService.getPlayer(sessionId));
-                }
-            }
-            else if ("place_object".equals(action)) {
-                String type = json.get("type").asText();
-                int x = json.get("x").asInt();
-                int y = json.get("y").asInt();
-                if (gameService.processPlaceObject(sessionId, type, x, y)) {
-                    ObjectNode msg = objectMapper.createObjectNode();
-                    msg.put("event", "object_placed");
-                    msg.put("type", type);
-                    msg.put("x", x);
-                    msg.put("y", y);
-
-                    TextMessage tm = new TextMessage(msg.toString());
-                    broadcastToAll(tm);
-
-                    sendInventoryUpdate(session, gameService.getPlayer(sessionId));
-                }
-            }
-            else if ("pickup_object".equals(action)) {
-                int x = json.get("x").asInt();
-                int y = json.get("y").asInt();
-                WorldObject obj = gameService.getActiveObjects().get(x + "_" + y);
-                String typeToDrop = (obj != null) ? obj.type : "Crafting Table";
-
-                if (gameService.processPickupObject(sessionId, x, y)) {
-                    ObjectNode msg = objectMapper.createObjectNode();
-                    msg.put("event", "object_removed");
-                    msg.put("x", x);
-                    msg.put("y", y);
-
-                    ArrayNode dropsNode = msg.putArray("drops");
-                    ObjectNode dNode = dropsNode.addObject();
-                    dNode.put("type", typeToDrop);
-                    dNode.put("amount", 1);
-
-                    TextMessage tm = new TextMessage(msg.toString());
-                    broadcastToAll(tm);
-                    sendInventoryUpdate(session, gameService.getPlayer(sessionId));
-                }
-            }
-            else if ("interact".equals(action)) {
-                int tx = json.get("x").asInt();
-                int ty = json.get("y").asInt();
-
-                WorldObject obj = gameService.processInteraction(sessionId, tx, ty);
-
-                if (obj != null) {
-                    ObjectNode msg = objectMapper.createObjectNode();
-                    msg.put("x", tx);
-                    msg.put("y", ty);
-
-                    boolean destroyed = obj.hp <= 0;
-                    List<GameService.DropResult> drops = gameService.calculateDrops(obj.type, destroyed);
-
-                    if (obj instanceof Monster) {
-                        msg.put("event", "monster_hit");
-                        msg.put("id", obj.id);
-                        msg.put("hp", obj.hp);
-                        if(destroyed) msg.put("destroyed", true);
-                    } else {
-                        if (destroyed) msg.put("event", "object_removed");
-                        else {
-                            msg.put("event", "object_hit");
-                            msg.put("hp", obj.hp);
-                        }
-                    }
-
-                    ArrayNode dropsNode = msg.putArray("drops");
-                    for(GameService.DropResult d : drops) {
-                        ObjectNode dNode = dropsNode.addObject();
-                        dNode.put("type", d.type);
-                        dNode.put("amount", d.amount);
-                    }
-
-                    TextMessage tm = new TextMessage(msg.toString());
-                    broadcastToAll(tm);
-                }
-            }
+            jsonDecoder.decode(message.getPayload(), conn, inbound);
         } catch (Exception e) {
             System.err.println("WS Error: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
-    private void broadcastToAll(TextMessage message) throws IOException {
-        for(WebSocketSession s : activeSessions) {
-            if(s.isOpen()) {
-                synchronized (s) {
-                    s.sendMessage(message);
-                }
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+        ClientConnection conn = connections.get(session.getId());
+        if (conn == null) return;
+        try {
+            binaryDecoder.decode(message.getPayload(), conn, inbound);
+        } catch (Exception e) {
+            System.err.println("WS Error (binary): " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    // --- Client Actions (tick thread, applied by the INPUT phase) ---
+
+    @Override
+    public void onMove(ClientConnection conn, double x, double y, long seqId) {
+        gameService.processMove(conn.getId(), x, y, seqId);
+    }
+
+    @Override
+    public void onAckSnapshot(ClientConnection conn, long tick) {
+        conn.getSnapshots().acknowledge(tick);
+    }
+
+    @Override
+    public void onRequestKeyframe(ClientConnection conn) {
+        conn.getSnapshots().requestKeyframe();
+    }
+
+    @Override
+    public void onChunkHashes(ClientConnection conn, int[] chunks) {
+        // Only useful before the matching cells went out; ignored once the download is done
+        WorldStream stream = conn.getWorldStream();
+        if (stream != null) stream.setClientHashes(chunks);
+    }
+
+    @Override
+    public void onCollectItem(ClientConnection conn, String itemType) {
+        PlayerState p = gameService.processPickup(conn.getId(), itemType);
+        sendInventoryUpdate(conn, p);
+    }
+
+    @Override
+    public void onRemoveItem(ClientConnection conn, String itemType, int amount) {
+        PlayerState p = gameService.processRemoveItem(conn.getId(), itemType, amount);
+        sendInventoryUpdate(conn, p);
+    }
+
+    @Override
+    public void onDropItem(ClientConnection conn, String itemType) {
+        GameService.DropResult result = gameService.dropItem(conn.getId(), itemType);
+
+        if (result != null) {
+            PlayerState p = gameService.getPlayer(conn.getId());
+            sendInventoryUpdate(conn, p);
+
+            List<GameService.DropResult> drops = List.of(result);
+            broadcastNear(toTile(p.getX()), toTile(p.getY()), codec -> codec.itemSpawn(p.getX(), p.getY(), drops));
+        }
+    }
+
+    @Override
+    public void onCraftItem(ClientConnection conn, String recipe) {
+        if (gameService.processCrafting(conn.getId(), recipe)) {
+            sendInventoryUpdate(conn, gameService.getPlayer(conn.getId()));
+        }
+    }
+
+    @Override
+    public void onPlaceObject(ClientConnection conn, String type, int x, int y) {
+        if (gameService.processPlaceObject(conn.getId(), type, x, y)) {
+            broadcastNear(x, y, codec -> codec.objectPlaced(type, x, y));
+            sendInventoryUpdate(conn, gameService.getPlayer(conn.getId()));
+        }
+    }
+
+    @Override
+    public void onPickupObject(ClientConnection conn, int x, int y) {
+        WorldObject obj = gameService.getObjectAt(x, y);
+        String typeToDrop = (obj != null) ? obj.type : "Crafting Table";
+
+        if (gameService.processPickupObject(conn.getId(), x, y)) {
+            List<GameService.DropResult> drops = List.of(new GameService.DropResult(typeToDrop, 1));
+            broadcastNear(x, y, codec -> codec.objectRemoved(x, y, drops));
+            sendInventoryUpdate(conn, gameService.getPlayer(conn.getId()));
+        }
+    }
+
+    @Override
+    public void onInteract(ClientConnection conn, int tx, int ty) {
+        WorldObject obj = gameService.processInteraction(conn.getId(), tx, ty);
+
+        if (obj != null) {
+            boolean destroyed = obj.hp <= 0;
+            List<GameService.DropResult> drops = gameService.calculateDrops(obj.type, destroyed);
+
+            if (obj instanceof Monster m) {
+                broadcastNear(tx, ty, codec -> codec.monsterHit(tx, ty, m, destroyed, drops));
+            } else if (destroyed) {
+                broadcastNear(tx, ty, codec -> codec.objectRemoved(tx, ty, drops));
+            } else {
+                int hp = obj.hp;
+                broadcastNear(tx, ty, codec -> codec.objectHit(tx, ty, hp, drops));
             }
         }
     }
 
-    private void sendWorldUpdate(WebSocketSession session, PlayerState state) throws IOException {
-        ObjectNode response = objectMapper.createObjectNode();
-        response.put("event", "position_update");
-        response.put("x", state.getX());
-        response.put("y", state.getY());
-        response.put("time", timeService.getGameTime());
-        response.put("hp", state.getHp());
-        response.put("maxHp", state.getMaxHp());
-
-        ArrayNode monsters = response.putArray("monsters");
-        Map<String, Monster> active = gameService.getActiveMonsters();
-
-        for (Monster m : active.values()) {
-            if (Math.abs(m.x - state.getX()) < 1000 && Math.abs(m.y - state.getY()) < 1000) {
-                ObjectNode mNode = monsters.addObject();
-                mNode.put("id", m.id);
-                mNode.put("x", m.x);
-                mNode.put("y", m.y);
-                mNode.put("hp", m.hp);
-                mNode.put("state", m.state.toString());
+    private static int toTile(double px) {
+        return (int) Math.floor(px / GameService.TILE_SIZE);
+    }
+
+    /**
+     * Sends a positional event to the sessions whose area of interest covers tile (tileX, tileY).
+     * Encodes at most once per protocol, however many sessions receive the event.
+     */
+    private void broadcastNear(int tileX, int tileY, Function<ProtocolCodec, WebSocketMessage<?>> encode) {
+        List<ClientConnection> recipients = new ArrayList<>();
+        aoi.collectSubscribers(tileX, tileY, recipients);
+
+        WebSocketMessage<?> json = null;
+        WebSocketMessage<?> binary = null;
+        for (ClientConnection c : recipients) {
+            if (!c.isOpen()) continue;
+            WebSocketMessage<?> message;
+            if (c.getCodec() == binaryCodec) {
+                if (binary == null) binary = encode.apply(binaryCodec);
+                message = binary;
+            } else {
+                if (json == null) json = encode.apply(jsonCodec);
+                message = json;
             }
+            c.send(message);
         }
+    }
 
-        synchronized (session) {
-            session.sendMessage(new TextMessage(response.toString()));
+    // Tick thread: follow the player and push the current contents of cells that just came into view
+    private void updateAreaOfInterest(ClientConnection conn, PlayerState state) {
+        enteredCells.clear();
+        aoi.update(conn, toTile(state.getX()), toTile(state.getY()), enteredCells);
+        if (enteredCells.isEmpty()) return;
+
+        int size = aoi.getCellTiles();
+        List<int[]> rects = new ArrayList<>(enteredCells.size());
+        List<WorldObject> objects = new ArrayList<>();
+        for (long cell : enteredCells) {
+            int minX = TileKey.unpackX(cell) * size;
+            int minY = TileKey.unpackY(cell) * size;
+            rects.add(new int[]{minX, minY, size, size});
+            gameService.getActiveObjects().collectInRect(minX, minY, minX + size - 1, minY + size - 1, objects);
         }
+        conn.send(conn.getCodec().regionSync(rects, objects));
     }
 
-    private void sendInventoryUpdate(WebSocketSession session, PlayerState p) throws IOException {
-        if (p != null) {
-            ObjectNode invMsg = objectMapper.createObjectNode();
-            invMsg.put("event", "inventory_update");
+    private void sendWorldUpdate(ClientConnection conn, PlayerState state) {
+        visibleMonsters.clear();
+        gameService.findMonstersInRect(state.getX() - 1000, state.getY() - 1000, state.getX() + 1000, state.getY() + 1000, visibleMonsters);
+        LongObjectMap<MonsterSnapshot> visible = conn.getSnapshots().newVisibleMap();
+        MonsterSnapshot[] snapshots = monsterSnapshots;
+        for (int i = 0; i < visibleMonsters.size(); i++) {
+            int h = visibleMonsters.get(i), s = MonsterPool.slot(h);
+            // Spawned after the SNAPSHOT phase: not captured yet
+            MonsterSnapshot ms = s < snapshots.length ? snapshots[s] : null;
+            if (ms != null && ms.netId() == h) visible.put(h, ms);
+        }
 
-            // [UPDATED] Use helper to send Map to client, hiding internal complexity
-            invMsg.putPOJO("items", p.getInventoryAsMap());
+        SnapshotDelta delta = conn.getSnapshots().next(snapshotTick, state.getX(), state.getY(), state.getHp(), state.getMaxHp(),
+                timeService.getGameTime(), visible, keyframeInterval);
+        conn.sendPosition(conn.getCodec().positionUpdate(delta));
+    }
 
-            synchronized (session) {
-                session.sendMessage(new TextMessage(invMsg.toString()));
-            }
+    private void sendInventoryUpdate(ClientConnection conn, PlayerState p) {
+        if (p != null) {
+            // [UPDATED] Use helper to send Map to client, hiding internal complexity
+            conn.send(conn.getCodec().inventoryUpdate(p.getInventoryAsMap()));
         }
     }
-}
\ No newline at end of file
+
+    public InboundQueue.Stats getInboundStats() {
+        return inbound.getStats();
+    }
+
+    /** Outbound queue depth and drop counters for every connected session. */
+    public List<OutboundQueue.Stats> getOutboundStats() {
+        List<OutboundQueue.Stats> stats = new ArrayList<>(connections.size());
+        for (ClientConnection conn : connections.values()) stats.add(conn.getOutbound().getStats());
+        return stats;
+    }
+}
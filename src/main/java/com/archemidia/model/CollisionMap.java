@@ -0,0 +1,94 @@
+package com.archemidia.model;
+
+import java.util.Arrays;
+
+/**
+ * Dense rasters over the bounded map disc.
+ * <ul>
+ *   <li>{@code terrain}: biome id per tile (-1 void, 0 grass, 1 sand, 2 snow), shared read-only with TerrainService.</li>
+ *   <li>{@code occupied}: one bit per tile holding a world object.</li>
+ *   <li>{@code blocked}: void OR occupied, so a walkability probe is a single word read.</li>
+ *   <li>{@code opaque}: one bit per tile holding an object that blocks line of sight.</li>
+ * </ul>
+ * Reads are lock-free; writers synchronize so concurrent place/remove on the same
+ * 64-tile word cannot lose an update.
+ */
+public class CollisionMap {
+    private final int radius;
+    private final int side;
+    private final byte[] terrain;
+    private final long[] occupied;
+    private final long[] blocked;
+    private final long[] opaque;
+
+    /** {@code terrain} is a row-major (2 * radius + 1)^2 biome raster; it is read, never written. */
+    public CollisionMap(int radius, byte[] terrain) {
+        this.radius = radius;
+        this.side = radius * 2 + 1;
+        if (terrain.length != side * side) throw new IllegalArgumentException("Terrain raster does not match radius " + radius);
+        this.terrain = terrain;
+        this.occupied = new long[(side * side + 63) >>> 6];
+        this.blocked = new long[occupied.length];
+        this.opaque = new long[occupied.length];
+        for (int i = 0; i < terrain.length; i++) refresh(i);
+    }
+
+    public int getRadius() { return radius; }
+
+    // Raster index, or -1 when (x, y) is outside the bounding square
+    private int index(int x, int y) {
+        int ix = x + radius;
+        int iy = y + radius;
+        if (ix < 0 || iy < 0 || ix >= side || iy >= side) return -1;
+        return iy * side + ix;
+    }
+
+    public int getTerrain(int x, int y) {
+        int i = index(x, y);
+        return i < 0 ? -1 : terrain[i];
+    }
+
+    public boolean isOccupied(int x, int y) {
+        int i = index(x, y);
+        return i >= 0 && (occupied[i >>> 6] & (1L << i)) != 0;
+    }
+
+    public synchronized void setOccupied(int x, int y, boolean value) {
+        int i = index(x, y);
+        if (i < 0) return;
+        if (value) occupied[i >>> 6] |= (1L << i);
+        else occupied[i >>> 6] &= ~(1L << i);
+        refresh(i);
+    }
+
+    /** Whether the object on (x, y) blocks line of sight; independent of walkability. */
+    public synchronized void setOpaque(int x, int y, boolean value) {
+        int i = index(x, y);
+        if (i < 0) return;
+        if (value) opaque[i >>> 6] |= (1L << i);
+        else opaque[i >>> 6] &= ~(1L << i);
+    }
+
+    public boolean isOpaque(int x, int y) {
+        int i = index(x, y);
+        return i >= 0 && (opaque[i >>> 6] & (1L << i)) != 0;
+    }
+
+    public synchronized void clearOccupancy() {
+        Arrays.fill(occupied, 0L);
+        Arrays.fill(opaque, 0L);
+        for (int i = 0; i < terrain.length; i++) refresh(i);
+    }
+
+    private void refresh(int i) {
+        boolean b = terrain[i] < 0 || (occupied[i >>> 6] & (1L << i)) != 0;
+        if (b) blocked[i >>> 6] |= (1L << i);
+        else blocked[i >>> 6] &= ~(1L << i);
+    }
+
+    /** True for void tiles, tiles outside the raster and tiles holding an object. */
+    public boolean isBlocked(int x, int y) {
+        int i = index(x, y);
+        return i < 0 || (blocked[i >>> 6] & (1L << i)) != 0;
+    }
+}
@@ -0,0 +1,104 @@
+package com.archemidia.model;
+
+import java.util.Arrays;
+
+/**
+ * Breadth-first integration field toward one goal tile, over the square window of the
+ * collision map within {@code radius} tiles of it.
+ * Every reachable tile stores its step count to the goal and the direction of its first step,
+ * so any number of pursuers look up their next tile in O(1).
+ * Built on the tick thread; read-only, and safe to share between AI workers, until the next build.
+ */
+public class FlowField {
+    public static final int NONE = -1;
+
+    // Orthogonal steps first, so ties prefer them; diagonals only past two walkable orthogonals
+    private static final int[] DX = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] DY = {0, 0, 1, -1, 1, -1, 1, -1};
+    private static final int[] OPPOSITE = {1, 0, 3, 2, 7, 6, 5, 4};
+
+    private final int radius;
+    private final int side;
+    private final int[] dist;
+    private final byte[] step;
+    private final int[] queue;
+    private int goalX, goalY;
+    private boolean dirty = true;
+
+    public FlowField(int radius) {
+        this.radius = radius;
+        this.side = radius * 2 + 1;
+        this.dist = new int[side * side];
+        this.step = new byte[side * side];
+        this.queue = new int[side * side];
+    }
+
+    public static int stepX(int direction) { return DX[direction]; }
+    public static int stepY(int direction) { return DY[direction]; }
+
+    public int getGoalX() { return goalX; }
+    public int getGoalY() { return goalY; }
+
+    /** Marks the field stale, e.g. after the walkability of a tile inside it changed. */
+    public void markDirty() { dirty = true; }
+
+    /** True when the field is stale or leads somewhere else than (x, y). */
+    public boolean needsBuild(int x, int y) {
+        return dirty || x != goalX || y != goalY;
+    }
+
+    public boolean covers(int x, int y) {
+        return Math.abs(x - goalX) <= radius && Math.abs(y - goalY) <= radius;
+    }
+
+    /** Recomputes the field toward tile (goalX, goalY). */
+    public void build(CollisionMap map, int goalX, int goalY) {
+        this.goalX = goalX;
+        this.goalY = goalY;
+        this.dirty = false;
+        Arrays.fill(dist, NONE);
+        Arrays.fill(step, (byte) NONE);
+
+        int goal = radius * side + radius;
+        dist[goal] = 0;
+        int head = 0, tail = 0;
+        queue[tail++] = goal;
+        while (head < tail) {
+            int cell = queue[head++];
+            int cx = cell % side, cy = cell / side;
+            for (int d = 0; d < 8; d++) {
+                int nx = cx + DX[d], ny = cy + DY[d];
+                if (nx < 0 || ny < 0 || nx >= side || ny >= side) continue;
+                int n = ny * side + nx;
+                if (dist[n] != NONE || !walkable(map, nx, ny)) continue;
+                if (d >= 4 && (!walkable(map, cx + DX[d], cy) || !walkable(map, cx, cy + DY[d]))) continue;
+                dist[n] = dist[cell] + 1;
+                step[n] = (byte) OPPOSITE[d];
+                queue[tail++] = n;
+            }
+        }
+    }
+
+    // Window coordinates; the window edge counts as a wall
+    private boolean walkable(CollisionMap map, int wx, int wy) {
+        if (wx < 0 || wy < 0 || wx >= side || wy >= side) return false;
+        return !map.isBlocked(goalX - radius + wx, goalY - radius + wy);
+    }
+
+    /**
+     * Direction of the first step from tile (x, y) toward the goal, for {@link #stepX}/{@link #stepY},
+     * or {@link #NONE} at the goal, outside the window or where the goal cannot be reached.
+     */
+    public int directionAt(int x, int y) {
+        int wx = x - goalX + radius, wy = y - goalY + radius;
+        if (wx < 0 || wy < 0 || wx >= side || wy >= side) return NONE;
+        return step[wy * side + wx];
+    }
+
+    /** Steps from tile (x, y) to the goal, or {@link #NONE}. */
+    public int distanceAt(int x, int y) {
+        int wx = x - goalX + radius, wy = y - goalY + radius;
+        if (wx < 0 || wy < 0 || wx >= side || wy >= side) return NONE;
+        return dist[wy * side + wx];
+    }
+}
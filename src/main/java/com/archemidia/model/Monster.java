@@ -1,10 +1,16 @@
 package com.archemidia.model;
 
-import java.util.Random;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.concurrent.ThreadLocalRandom;
 
 public class Monster extends WorldObject {
     public String targetPlayerId = null;
 
+    // Pool handle, the compact id of the binary protocol; not persisted
+    @JsonIgnore
+    public int netId;
+
     // Cooldowns
     public long lastAttackTime = 0;
     public long lastDashTime = 0;
@@ -41,7 +47,7 @@ public class Monster extends WorldObject {
         this.maxHp = 10;
         this.hp = this.maxHp;
 
-        this.personality = Personality.values()[new Random().nextInt(Personality.values().length)];
+        this.personality = Personality.values()[ThreadLocalRandom.current().nextInt(Personality.values().length)];
 
         if (this.personality == Personality.AGGRESSIVE) {
             this.speed = 2.4; // Even Faster
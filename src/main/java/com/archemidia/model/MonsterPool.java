@@ -0,0 +1,358 @@
+package com.archemidia.model;
+
+import com.archemidia.util.IntList;
+import com.archemidia.util.LongObjectMap;
+import com.archemidia.util.TileKey;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Live monsters as parallel primitive columns (structure of arrays), so an AI pass over
+ * thousands of them walks a few dense arrays instead of chasing one object per monster.
+ * <p>
+ * A monster is addressed by an int handle: its slot in the columns plus the slot's generation.
+ * Slots are reused after death with the generation bumped, so a stale handle never reaches
+ * the monster that took the slot over. The handle doubles as the monster's wire net id.
+ * Columns are indexed by {@link #slot}; they are replaced when the pool grows, so never keep
+ * a column reference across a {@link #spawn}.
+ * <p>
+ * {@link Monster} remains the persisted and JSON form: {@link #view} copies a slot out,
+ * {@link #add} copies one in. The pool also indexes its monsters in a grid of
+ * {@code cellSize} px cells for range queries.
+ * <p>
+ * Tick thread only. During an AI run each worker writes the columns of its own slots only.
+ */
+public class MonsterPool {
+    public static final int NONE = -1;
+
+    private static final int SLOT_BITS = 20;
+    private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+    private static final int GEN_MASK = 0x7FF; // Keeps handles positive
+
+    // Monster.State / Monster.Personality ordinals
+    public static final byte IDLE = (byte) Monster.State.IDLE.ordinal();
+    public static final byte WANDER = (byte) Monster.State.WANDER.ordinal();
+    public static final byte CHASE = (byte) Monster.State.CHASE.ordinal();
+    public static final byte ATTACK = (byte) Monster.State.ATTACK.ordinal();
+    public static final byte HURT = (byte) Monster.State.HURT.ordinal();
+    public static final byte DASH = (byte) Monster.State.DASH.ordinal();
+    public static final byte EVADE = (byte) Monster.State.EVADE.ordinal();
+    public static final byte JUMP = (byte) Monster.State.JUMP.ordinal();
+    public static final byte AGGRESSIVE = (byte) Monster.Personality.AGGRESSIVE.ordinal();
+    public static final byte LAZY = (byte) Monster.Personality.LAZY.ordinal();
+    private static final Monster.State[] STATES = Monster.State.values();
+    private static final Monster.Personality[] PERSONALITIES = Monster.Personality.values();
+
+    // --- Columns, indexed by slot ---
+    public String[] id;
+    public String[] type;
+    public String[] target;         // Target player id, or null
+    public int[] x, y;
+    public int[] hp, maxHp;
+    public double[] dx, dy, speed;
+    public byte[] state, personality;
+    public boolean[] aggravated;
+    public long[] stateTimer;
+    public long[] lastAttack, lastDash, lastJump, lastEvade;
+    // Simulation level of detail, managed by GameService
+    public int[] simStep;           // Ticks the current AI update stands for
+    public long[] lodTick;          // Last AI tick a player was within range
+    public long[] asleepSince;      // Wall-clock ms it went to sleep, 0 while awake
+
+    private int[] gen;
+    private boolean[] alive;
+    private int capacity;
+
+    // Live handles, densely packed for iteration; liveIndex maps a slot to its position in it
+    private int[] live;
+    private int[] liveIndex;
+    private int size;
+    private int[] free;
+    private int freeCount;
+    private int nextFresh;
+
+    // --- Spatial cells ---
+    private final int cellSize;
+    private final LongObjectMap<Bucket> cells = new LongObjectMap<>(256);
+    private long[] cellKey;
+    private int[] cellPos;
+
+    private static final class Bucket {
+        int[] slots = new int[4];
+        int size;
+    }
+
+    public MonsterPool(int cellSize) {
+        this.cellSize = cellSize;
+        allocate(64);
+    }
+
+    private void allocate(int n) {
+        id = Arrays.copyOf(id == null ? new String[0] : id, n);
+        type = Arrays.copyOf(type == null ? new String[0] : type, n);
+        target = Arrays.copyOf(target == null ? new String[0] : target, n);
+        x = grow(x, n); y = grow(y, n);
+        hp = grow(hp, n); maxHp = grow(maxHp, n);
+        dx = grow(dx, n); dy = grow(dy, n); speed = grow(speed, n);
+        state = grow(state, n); personality = grow(personality, n);
+        aggravated = aggravated == null ? new boolean[n] : Arrays.copyOf(aggravated, n);
+        stateTimer = grow(stateTimer, n);
+        lastAttack = grow(lastAttack, n); lastDash = grow(lastDash, n);
+        lastJump = grow(lastJump, n); lastEvade = grow(lastEvade, n);
+        simStep = grow(simStep, n); lodTick = grow(lodTick, n); asleepSince = grow(asleepSince, n);
+        gen = grow(gen, n);
+        alive = alive == null ? new boolean[n] : Arrays.copyOf(alive, n);
+        live = grow(live, n); liveIndex = grow(liveIndex, n); free = grow(free, n);
+        cellKey = grow(cellKey, n); cellPos = grow(cellPos, n);
+        capacity = n;
+    }
+
+    private static int[] grow(int[] a, int n) { return a == null ? new int[n] : Arrays.copyOf(a, n); }
+    private static long[] grow(long[] a, int n) { return a == null ? new long[n] : Arrays.copyOf(a, n); }
+    private static double[] grow(double[] a, int n) { return a == null ? new double[n] : Arrays.copyOf(a, n); }
+    private static byte[] grow(byte[] a, int n) { return a == null ? new byte[n] : Arrays.copyOf(a, n); }
+
+    // --- Handles ---
+
+    public static int slot(int handle) { return handle & SLOT_MASK; }
+
+    public int handle(int slot) { return (gen[slot] << SLOT_BITS) | slot; }
+
+    public boolean isAlive(int handle) {
+        if (handle < 0) return false;
+        int s = slot(handle);
+        return s < nextFresh && alive[s] && gen[s] == handle >>> SLOT_BITS;
+    }
+
+    public int size() { return size; }
+
+    /** The i-th live handle, for i in [0, size()); order changes when monsters die. */
+    public int handleAt(int i) { return live[i]; }
+
+    // --- Lifecycle ---
+
+    /** A new monster with a random personality; {@link #NONE} once every slot is taken. */
+    public int spawn(String monsterType, int px, int py) {
+        int s = takeSlot();
+        if (s == NONE) return NONE;
+        type[s] = monsterType;
+        x[s] = px; y[s] = py;
+        maxHp[s] = 10; hp[s] = 10;
+        speed[s] = 1.8;
+        personality[s] = (byte) ThreadLocalRandom.current().nextInt(PERSONALITIES.length);
+        aggravated[s] = false;
+        if (personality[s] == AGGRESSIVE) {
+            speed[s] = 2.4; // Even Faster
+            aggravated[s] = true;
+        } else if (personality[s] == LAZY) {
+            speed[s] = 1.2;
+        }
+        placeInCell(s);
+        return handle(s);
+    }
+
+    /** Copies a persisted monster in; it gets a fresh handle and id. */
+    public int add(Monster m) {
+        int s = takeSlot();
+        if (s == NONE) return NONE;
+        type[s] = m.type;
+        x[s] = m.x; y[s] = m.y;
+        hp[s] = m.hp; maxHp[s] = m.maxHp;
+        speed[s] = m.speed;
+        dx[s] = m.dx; dy[s] = m.dy;
+        state[s] = m.state != null ? (byte) m.state.ordinal() : IDLE;
+        personality[s] = (byte) (m.personality != null ? m.personality : Monster.Personality.NORMAL).ordinal();
+        aggravated[s] = m.isAggravated;
+        target[s] = m.targetPlayerId;
+        stateTimer[s] = m.stateTimer;
+        lastAttack[s] = m.lastAttackTime; lastDash[s] = m.lastDashTime;
+        lastJump[s] = m.lastJumpTime; lastEvade[s] = m.lastEvadeTime;
+        placeInCell(s);
+        return handle(s);
+    }
+
+    private int takeSlot() {
+        int s;
+        if (freeCount > 0) {
+            s = free[--freeCount];
+        } else {
+            if (nextFresh > SLOT_MASK) return NONE;
+            if (nextFresh == capacity) allocate(Math.min(capacity * 2, SLOT_MASK + 1));
+            s = nextFresh++;
+        }
+        alive[s] = true;
+        id[s] = "monster_" + handle(s);
+        target[s] = null;
+        dx[s] = 0; dy[s] = 0;
+        state[s] = IDLE;
+        stateTimer[s] = 0;
+        lastAttack[s] = 0; lastDash[s] = 0; lastJump[s] = 0; lastEvade[s] = 0;
+        simStep[s] = 1; lodTick[s] = 0; asleepSince[s] = 0;
+        liveIndex[s] = size;
+        live[size++] = handle(s);
+        return s;
+    }
+
+    /** Frees the monster's slot for reuse; its handle goes stale. */
+    public void release(int handle) {
+        if (!isAlive(handle)) return;
+        int s = slot(handle);
+        removeFromCell(s);
+        alive[s] = false;
+        gen[s] = (gen[s] + 1) & GEN_MASK;
+        target[s] = null;
+        id[s] = null;
+        int i = liveIndex[s], last = live[--size];
+        live[i] = last;
+        liveIndex[slot(last)] = i;
+        free[freeCount++] = s;
+    }
+
+    public Monster.State stateOf(int slot) { return STATES[state[slot]]; }
+
+    /** The monster as a standalone {@link Monster}, for persistence and the JSON protocol. */
+    public Monster view(int handle) {
+        int s = slot(handle);
+        Monster m = new Monster();
+        m.id = id[s];
+        m.netId = handle;
+        m.type = type[s];
+        m.x = x[s]; m.y = y[s];
+        m.hp = hp[s]; m.maxHp = maxHp[s];
+        m.speed = speed[s];
+        m.dx = dx[s]; m.dy = dy[s];
+        m.state = STATES[state[s]];
+        m.personality = PERSONALITIES[personality[s]];
+        m.isAggravated = aggravated[s];
+        m.targetPlayerId = target[s];
+        m.stateTimer = stateTimer[s];
+        m.lastAttackTime = lastAttack[s]; m.lastDashTime = lastDash[s];
+        m.lastJumpTime = lastJump[s]; m.lastEvadeTime = lastEvade[s];
+        return m;
+    }
+
+    /** Views of every live monster keyed by id, the form snapshots store. */
+    public Map<String, Monster> views() {
+        Map<String, Monster> out = new LinkedHashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            Monster m = view(live[i]);
+            out.put(m.id, m);
+        }
+        return out;
+    }
+
+    // --- Positions & range queries ---
+
+    /** Moves the monster and keeps its grid cell current. */
+    public void move(int slot, int px, int py) {
+        x[slot] = px;
+        y[slot] = py;
+        relocate(slot);
+    }
+
+    /** Re-files the slot after its x/y columns were written directly (AI workers do). */
+    public void relocate(int slot) {
+        if (cellKey[slot] == cellOf(x[slot], y[slot])) return;
+        removeFromCell(slot);
+        placeInCell(slot);
+    }
+
+    private long cellOf(int px, int py) {
+        return TileKey.pack(Math.floorDiv(px, cellSize), Math.floorDiv(py, cellSize));
+    }
+
+    private void placeInCell(int s) {
+        long key = cellOf(x[s], y[s]);
+        Bucket b = cells.get(key);
+        if (b == null) {
+            b = new Bucket();
+            cells.put(key, b);
+        }
+        if (b.size == b.slots.length) b.slots = Arrays.copyOf(b.slots, b.size * 2);
+        cellKey[s] = key;
+        cellPos[s] = b.size;
+        b.slots[b.size++] = s;
+    }
+
+    // Swap-remove: O(1), order inside a cell does not matter
+    private void removeFromCell(int s) {
+        Bucket b = cells.get(cellKey[s]);
+        int last = b.slots[--b.size];
+        b.slots[cellPos[s]] = last;
+        cellPos[last] = cellPos[s];
+        if (b.size == 0) cells.remove(cellKey[s]);
+    }
+
+    /** Appends the handles of the monsters inside the box (inclusive) to {@code out}. */
+    public int queryRect(double minX, double minY, double maxX, double maxY, IntList out) {
+        int found = 0;
+        int minCx = (int) Math.floor(minX / cellSize), maxCx = (int) Math.floor(maxX / cellSize);
+        int minCy = (int) Math.floor(minY / cellSize), maxCy = (int) Math.floor(maxY / cellSize);
+        for (int cy = minCy; cy <= maxCy; cy++) {
+            for (int cx = minCx; cx <= maxCx; cx++) {
+                Bucket b = cells.get(TileKey.pack(cx, cy));
+                if (b == null) continue;
+                for (int i = 0; i < b.size; i++) {
+                    int s = b.slots[i];
+                    if (x[s] >= minX && x[s] <= maxX && y[s] >= minY && y[s] <= maxY) {
+                        out.add(handle(s));
+                        found++;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /** Appends the handles of the monsters within {@code radius} px of (px, py) to {@code out}. */
+    public int queryRadius(double px, double py, double radius, IntList out) {
+        int found = 0;
+        double r2 = radius * radius;
+        int minCx = (int) Math.floor((px - radius) / cellSize), maxCx = (int) Math.floor((px + radius) / cellSize);
+        int minCy = (int) Math.floor((py - radius) / cellSize), maxCy = (int) Math.floor((py + radius) / cellSize);
+        for (int cy = minCy; cy <= maxCy; cy++) {
+            for (int cx = minCx; cx <= maxCx; cx++) {
+                Bucket b = cells.get(TileKey.pack(cx, cy));
+                if (b == null) continue;
+                for (int i = 0; i < b.size; i++) {
+                    int s = b.slots[i];
+                    double ddx = x[s] - px, ddy = y[s] - py;
+                    if (ddx * ddx + ddy * ddy <= r2) {
+                        out.add(handle(s));
+                        found++;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /** Handle of the closest monster strictly within {@code maxDist} px other than {@code exclude}, or {@link #NONE}. */
+    public int nearest(double px, double py, double maxDist, int exclude) {
+        double best = maxDist * maxDist;
+        int found = NONE;
+        int minCx = (int) Math.floor((px - maxDist) / cellSize), maxCx = (int) Math.floor((px + maxDist) / cellSize);
+        int minCy = (int) Math.floor((py - maxDist) / cellSize), maxCy = (int) Math.floor((py + maxDist) / cellSize);
+        for (int cy = minCy; cy <= maxCy; cy++) {
+            for (int cx = minCx; cx <= maxCx; cx++) {
+                Bucket b = cells.get(TileKey.pack(cx, cy));
+                if (b == null) continue;
+                for (int i = 0; i < b.size; i++) {
+                    int s = b.slots[i];
+                    int h = handle(s);
+                    if (h == exclude) continue;
+                    double ddx = x[s] - px, ddy = y[s] - py;
+                    double d2 = ddx * ddx + ddy * ddy;
+                    if (d2 < best) {
+                        best = d2;
+                        found = h;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+}
@@ -2,10 +2,15 @@ package com.archemidia.model;
 
 import com.archemidia.model.item.Item;
 import com.archemidia.model.item.ItemStack;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class PlayerState {
@@ -33,6 +38,8 @@ public class PlayerState {
 
     // [CHANGED] Map -> List<ItemStack>
     private List<ItemStack> inventory = new ArrayList<>();
+    // Loaded from a save, waiting for restoreInventory() to resolve the ids
+    private Map<String, Integer> savedInventory;
 
     public PlayerState() {
         this.maxHp = 100;
@@ -50,10 +57,13 @@ public class PlayerState {
     // --- NEW INVENTORY MANAGEMENT ---
 
     // For Internal Logic
+    @JsonIgnore
     public List<ItemStack> getInventory() { return inventory; }
+    @JsonIgnore
     public void setInventory(List<ItemStack> inventory) { this.inventory = inventory; }
 
     // For Client Compatibility (converts back to simple Map)
+    @JsonIgnore
     public Map<String, Integer> getInventoryAsMap() {
         return inventory.stream()
                 .collect(Collectors.toMap(
@@ -62,6 +72,34 @@ public class PlayerState {
                 ));
     }
 
+    // --- Persistence: saved as item id -> count, re-linked to the ItemRegistry on load ---
+
+    @JsonProperty("inventory")
+    public Map<String, Integer> getSavedInventory() { return getInventoryAsMap(); }
+
+    // Also accepts the old [{"item": {"id": ...}, "count": n}] layout
+    @JsonProperty("inventory")
+    public void setSavedInventory(JsonNode node) {
+        Map<String, Integer> saved = new LinkedHashMap<>();
+        if (node != null && node.isObject()) {
+            for (Map.Entry<String, JsonNode> e : node.properties()) saved.put(e.getKey(), e.getValue().asInt());
+        } else if (node != null && node.isArray()) {
+            for (JsonNode stack : node) saved.put(stack.path("item").path("id").asText(), stack.path("count").asInt());
+        }
+        this.savedInventory = saved;
+    }
+
+    /** Rebuilds the inventory of a loaded player; unknown item ids are dropped. */
+    public void restoreInventory(Function<String, Item> lookup) {
+        if (savedInventory == null) return;
+        inventory = new ArrayList<>();
+        savedInventory.forEach((id, count) -> {
+            Item item = lookup.apply(id);
+            if (item != null && count > 0) addItem(item, count);
+        });
+        savedInventory = null;
+    }
+
     public void addItem(Item item, int amount) {
         // 1. Try to stack with existing
         for (ItemStack stack : inventory) {
@@ -0,0 +1,225 @@
+package com.archemidia.model;
+
+import com.archemidia.util.LongObjectMap;
+import com.archemidia.util.TileKey;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Tile-addressed store of placed/generated world objects.
+ * Keys are packed tile coordinates, so collision probes and neighbour scans
+ * never build a String. The String keyed form ("x_y") only exists at the
+ * persistence boundary, see {@link #collectChanges} and {@link #applyChanges}.
+ * <p>
+ * Generated objects come from a {@link Baseline} and are only held once their chunk
+ * ({@link #CHUNK_TILES} square) is materialized: on the first get/put/remove in it.
+ * Read-only probes ({@link #contains}, {@link #collectInRect}) of other chunks answer straight
+ * from the baseline, so memory follows what players actually touched.
+ */
+public class WorldObjectIndex {
+    public static final int CHUNK_TILES = 16;
+
+    /** The procedurally generated objects, a pure function of the tile. */
+    public interface Baseline {
+        /** Type of the generated object on tile (x, y), or null. */
+        String typeAt(int x, int y);
+
+        /** Every generated object lies within this many tiles of the origin on both axes. */
+        int radius();
+    }
+
+    private static final Baseline EMPTY = new Baseline() {
+        @Override public String typeAt(int x, int y) { return null; }
+        @Override public int radius() { return 0; }
+    };
+
+    private final Baseline baseline;
+    private final LongObjectMap<WorldObject> tiles = new LongObjectMap<>(4096);
+    // Chunk key -> TRUE once its baseline objects are copied into tiles
+    private final LongObjectMap<Boolean> materialized = new LongObjectMap<>();
+
+    public WorldObjectIndex() {
+        this(EMPTY);
+    }
+
+    public WorldObjectIndex(Baseline baseline) {
+        this.baseline = baseline;
+    }
+
+    public synchronized WorldObject get(int x, int y) {
+        materialize(x, y);
+        return tiles.get(TileKey.pack(x, y));
+    }
+
+    public synchronized boolean contains(int x, int y) {
+        if (isMaterialized(x, y)) return tiles.containsKey(TileKey.pack(x, y));
+        return baseline.typeAt(x, y) != null;
+    }
+
+    /** Type of the object on tile (x, y), or null; like {@link #contains}, never materializes. */
+    public synchronized String typeAt(int x, int y) {
+        if (isMaterialized(x, y)) {
+            WorldObject o = tiles.get(TileKey.pack(x, y));
+            return o == null ? null : o.type;
+        }
+        return baseline.typeAt(x, y);
+    }
+
+    /** Indexes the object under its own tile coordinates. */
+    public synchronized WorldObject put(WorldObject obj) {
+        materialize(obj.x, obj.y);
+        return tiles.put(TileKey.pack(obj.x, obj.y), obj);
+    }
+
+    public synchronized WorldObject remove(int x, int y) {
+        materialize(x, y);
+        return tiles.remove(TileKey.pack(x, y));
+    }
+
+    /** Objects held in memory (materialized chunks only). */
+    public synchronized int size() { return tiles.size(); }
+    public synchronized int materializedChunks() { return materialized.size(); }
+
+    public synchronized void clear() {
+        tiles.clear();
+        materialized.clear();
+    }
+
+    /** Visits materialized objects only; every placed or modified object is among them. */
+    public synchronized void forEach(Consumer<WorldObject> action) {
+        tiles.forEachValue(action);
+    }
+
+    /** Like {@link #forEach}, materialized objects only. */
+    public synchronized boolean anyMatch(Predicate<WorldObject> predicate) {
+        boolean[] found = {false};
+        tiles.forEachValue(o -> { if (!found[0] && predicate.test(o)) found[0] = true; });
+        return found[0];
+    }
+
+    /**
+     * Appends every object inside the inclusive tile rectangle to {@code out}.
+     * Objects of chunks that are not materialized are fresh baseline copies.
+     */
+    public synchronized void collectInRect(int minX, int minY, int maxX, int maxY, List<WorldObject> out) {
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                if (isMaterialized(x, y)) {
+                    WorldObject o = tiles.get(TileKey.pack(x, y));
+                    if (o != null) out.add(o);
+                } else {
+                    String type = baseline.typeAt(x, y);
+                    if (type != null) out.add(new WorldObject(type, x, y));
+                }
+            }
+        }
+    }
+
+    /** Point-in-time copy of the materialized objects, safe to iterate outside the lock. */
+    public synchronized List<WorldObject> snapshot() {
+        List<WorldObject> out = new ArrayList<>(tiles.size());
+        tiles.forEachValue(out::add);
+        return out;
+    }
+
+    // --- Chunks ---
+
+    private static long chunkOf(int x, int y) {
+        return TileKey.pack(Math.floorDiv(x, CHUNK_TILES), Math.floorDiv(y, CHUNK_TILES));
+    }
+
+    private boolean isMaterialized(int x, int y) {
+        return materialized.containsKey(chunkOf(x, y));
+    }
+
+    // Copies the chunk's baseline objects in, once
+    private void materialize(int x, int y) {
+        long chunk = chunkOf(x, y);
+        if (materialized.containsKey(chunk)) return;
+        materialized.put(chunk, Boolean.TRUE);
+        int minX = TileKey.unpackX(chunk) * CHUNK_TILES;
+        int minY = TileKey.unpackY(chunk) * CHUNK_TILES;
+        for (int ty = minY; ty < minY + CHUNK_TILES; ty++) {
+            for (int tx = minX; tx < minX + CHUNK_TILES; tx++) {
+                String type = baseline.typeAt(tx, ty);
+                if (type != null) tiles.put(TileKey.pack(tx, ty), new WorldObject(type, tx, ty));
+            }
+        }
+    }
+
+    /** Visits the packed keys of materialized chunks (chunk coordinates, not tiles). */
+    public synchronized void forEachMaterializedChunk(LongConsumer action) {
+        materialized.forEach((chunk, ignored) -> action.accept(chunk));
+    }
+
+    // An object the baseline would generate exactly like this needs no saving
+    private boolean isPristine(WorldObject o) {
+        return o.ownerId == null && o.hp == o.maxHp && o.type.equals(baseline.typeAt(o.x, o.y));
+    }
+
+    // --- Persistence Adapter ---
+
+    /**
+     * Differences from the baseline inside the inclusive tile rectangle, in the "x_y" keyed save form:
+     * placed or modified objects go to {@code changed}, tiles whose baseline object is gone
+     * to {@code removed} as packed tile keys. Only materialized chunks can differ.
+     */
+    public synchronized void collectChanges(int minX, int minY, int maxX, int maxY,
+                                            Map<String, WorldObject> changed, LongConsumer removed) {
+        for (int cy = Math.floorDiv(minY, CHUNK_TILES); cy <= Math.floorDiv(maxY, CHUNK_TILES); cy++) {
+            for (int cx = Math.floorDiv(minX, CHUNK_TILES); cx <= Math.floorDiv(maxX, CHUNK_TILES); cx++) {
+                if (!materialized.containsKey(TileKey.pack(cx, cy))) continue;
+                int x0 = Math.max(minX, cx * CHUNK_TILES), x1 = Math.min(maxX, cx * CHUNK_TILES + CHUNK_TILES - 1);
+                int y0 = Math.max(minY, cy * CHUNK_TILES), y1 = Math.min(maxY, cy * CHUNK_TILES + CHUNK_TILES - 1);
+                for (int y = y0; y <= y1; y++) {
+                    for (int x = x0; x <= x1; x++) {
+                        WorldObject o = tiles.get(TileKey.pack(x, y));
+                        if (o == null) {
+                            if (baseline.typeAt(x, y) != null) removed.accept(TileKey.pack(x, y));
+                        } else if (!isPristine(o)) {
+                            changed.put(TileKey.toLegacyKey(x, y), o);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /** {@link #collectChanges} over every materialized chunk. */
+    public synchronized void collectAllChanges(Map<String, WorldObject> changed, LongConsumer removed) {
+        materialized.forEach((chunk, ignored) -> {
+            int minX = TileKey.unpackX(chunk) * CHUNK_TILES, minY = TileKey.unpackY(chunk) * CHUNK_TILES;
+            collectChanges(minX, minY, minX + CHUNK_TILES - 1, minY + CHUNK_TILES - 1, changed, removed);
+        });
+    }
+
+    /** Applies saved differences: {@code removed} holds flattened (x, y) tile pairs. */
+    public synchronized void applyChanges(Collection<WorldObject> changed, int[] removed) {
+        for (WorldObject o : changed) {
+            if (o != null) put(o);
+        }
+        for (int i = 0; i + 1 < removed.length; i += 2) remove(removed[i], removed[i + 1]);
+    }
+
+    /**
+     * Loads a save that lists every object, generated ones included (saves from before the
+     * baseline existed). Every chunk the baseline covers is treated as materialized, so
+     * generated objects missing from the save stay removed.
+     */
+    public synchronized void loadFullState(Collection<WorldObject> all) {
+        clear();
+        int chunkRadius = Math.floorDiv(baseline.radius(), CHUNK_TILES) + 1;
+        for (int cy = -chunkRadius; cy <= chunkRadius; cy++) {
+            for (int cx = -chunkRadius; cx <= chunkRadius; cx++) materialized.put(TileKey.pack(cx, cy), Boolean.TRUE);
+        }
+        for (WorldObject o : all) {
+            if (o != null) put(o);
+        }
+    }
+}
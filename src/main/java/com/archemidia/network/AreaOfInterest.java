@@ -0,0 +1,89 @@
+package com.archemidia.network;
+
+import com.archemidia.util.LongObjectMap;
+import com.archemidia.util.TileKey;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Cell-based interest management.
+ * The map is cut into square cells of {@code cellTiles} tiles; every connection subscribes
+ * to the cells within {@code viewRadius} cells of its player. Positional events are only
+ * delivered to the subscribers of the cell they happen in, so fan-out cost follows local
+ * player density instead of the total player count.
+ */
+public class AreaOfInterest {
+    private final int cellTiles;
+    private final int viewRadius;
+    private final LongObjectMap<List<ClientConnection>> subscribers = new LongObjectMap<>(256);
+
+    public AreaOfInterest(int cellTiles, int viewRadius) {
+        this.cellTiles = cellTiles;
+        this.viewRadius = viewRadius;
+    }
+
+    public int getCellTiles() { return cellTiles; }
+
+    public int cellOf(int tile) {
+        return Math.floorDiv(tile, cellTiles);
+    }
+
+    /**
+     * Moves the connection's view to the cell containing tile (tileX, tileY).
+     * Newly covered cells are appended to {@code enteredCells} as packed keys.
+     */
+    public synchronized void update(ClientConnection conn, int tileX, int tileY, Collection<Long> enteredCells) {
+        int cx = cellOf(tileX);
+        int cy = cellOf(tileY);
+        boolean had = conn.aoiAttached;
+        int ox = conn.aoiCellX, oy = conn.aoiCellY;
+        if (had && ox == cx && oy == cy) return;
+
+        // Leave cells that are no longer in view
+        if (had) {
+            for (int x = ox - viewRadius; x <= ox + viewRadius; x++) {
+                for (int y = oy - viewRadius; y <= oy + viewRadius; y++) {
+                    if (Math.abs(x - cx) <= viewRadius && Math.abs(y - cy) <= viewRadius) continue;
+                    List<ClientConnection> list = subscribers.get(TileKey.pack(x, y));
+                    if (list != null) list.remove(conn);
+                }
+            }
+        }
+        // Join the ones that just came into view
+        for (int x = cx - viewRadius; x <= cx + viewRadius; x++) {
+            for (int y = cy - viewRadius; y <= cy + viewRadius; y++) {
+                if (had && Math.abs(x - ox) <= viewRadius && Math.abs(y - oy) <= viewRadius) continue;
+                long key = TileKey.pack(x, y);
+                List<ClientConnection> list = subscribers.get(key);
+                if (list == null) {
+                    list = new ArrayList<>(4);
+                    subscribers.put(key, list);
+                }
+                list.add(conn);
+                enteredCells.add(key);
+            }
+        }
+        conn.aoiCellX = cx;
+        conn.aoiCellY = cy;
+        conn.aoiAttached = true;
+    }
+
+    public synchronized void remove(ClientConnection conn) {
+        if (!conn.aoiAttached) return;
+        for (int x = conn.aoiCellX - viewRadius; x <= conn.aoiCellX + viewRadius; x++) {
+            for (int y = conn.aoiCellY - viewRadius; y <= conn.aoiCellY + viewRadius; y++) {
+                List<ClientConnection> list = subscribers.get(TileKey.pack(x, y));
+                if (list != null) list.remove(conn);
+            }
+        }
+        conn.aoiAttached = false;
+    }
+
+    /** Appends the connections whose view covers tile (tileX, tileY) to {@code out}. */
+    public synchronized void collectSubscribers(int tileX, int tileY, Collection<ClientConnection> out) {
+        List<ClientConnection> list = subscribers.get(TileKey.pack(cellOf(tileX), cellOf(tileY)));
+        if (list != null) out.addAll(list);
+    }
+}
@@ -0,0 +1,53 @@
+package com.archemidia.network;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes binary client frames: the {@link ClientAction} ordinal followed by its fields,
+ * mirroring the layouts in {@link BinaryProtocolCodec}.
+ */
+public class BinaryActionDecoder {
+
+    public void decode(ByteBuffer payload, ClientConnection conn, ClientActionHandler handler) {
+        ByteReader in = new ByteReader(payload);
+        ClientAction action = ClientAction.fromOrdinal(in.readByte());
+        if (action == null) throw new IllegalArgumentException("Unknown binary action");
+
+        switch (action) {
+            case REQUEST_MOVE -> {
+                double x = in.readSignedVarInt() / (double) BinaryProtocolCodec.POSITION_SCALE;
+                double y = in.readSignedVarInt() / (double) BinaryProtocolCodec.POSITION_SCALE;
+                handler.onMove(conn, x, y, in.readVarLong());
+            }
+            case COLLECT_ITEM -> handler.onCollectItem(conn, in.readName());
+            case REMOVE_ITEM -> {
+                String item = in.readName();
+                handler.onRemoveItem(conn, item, in.readVarInt());
+            }
+            case DROP_ITEM -> handler.onDropItem(conn, in.readName());
+            case CRAFT_ITEM -> handler.onCraftItem(conn, in.readName());
+            case PLACE_OBJECT -> {
+                String type = in.readName();
+                int x = in.readSignedVarInt();
+                handler.onPlaceObject(conn, type, x, in.readSignedVarInt());
+            }
+            case PICKUP_OBJECT -> {
+                int x = in.readSignedVarInt();
+                handler.onPickupObject(conn, x, in.readSignedVarInt());
+            }
+            case INTERACT -> {
+                int x = in.readSignedVarInt();
+                handler.onInteract(conn, x, in.readSignedVarInt());
+            }
+            case ACK_SNAPSHOT -> handler.onAckSnapshot(conn, in.readVarLong());
+            case REQUEST_KEYFRAME -> handler.onRequestKeyframe(conn);
+            case CHUNK_HASHES -> {
+                int count = in.readVarInt();
+                if (count > WorldStream.MAX_CLIENT_HASHES) throw new IllegalArgumentException("Too many chunk hashes");
+                int[] chunks = new int[count * 3];
+                for (int i = 0; i < chunks.length; i++) chunks[i] = in.readSignedVarInt();
+                handler.onChunkHashes(conn, chunks);
+            }
+        }
+    }
+}
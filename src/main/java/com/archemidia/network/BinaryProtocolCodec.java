@@ -0,0 +1,186 @@
+package com.archemidia.network;
+
+import com.archemidia.model.Monster;
+import com.archemidia.model.WorldObject;
+import com.archemidia.service.GameService;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary protocol.
+ * Every frame starts with the {@link ServerEvent} ordinal. Integers are LEB128 varints
+ * (zigzag when signed), item/object names use the {@link WireNames} dictionary, monsters
+ * are referred to by their numeric net id and their state by {@link Monster.State} ordinal.
+ * Player positions are quantized to 1/{@value #POSITION_SCALE} px, game time to 1/65536 day.
+ */
+public class BinaryProtocolCodec implements ProtocolCodec {
+    public static final String SUBPROTOCOL = "archemidia.bin.v1";
+    public static final int POSITION_SCALE = 4;
+    public static final int TIME_SCALE = 65536;
+
+    public static int quantize(double v) {
+        return (int) Math.round(v * POSITION_SCALE);
+    }
+
+    private static ByteWriter start(ServerEvent event) {
+        return new ByteWriter().writeByte(event.ordinal());
+    }
+
+    private static BinaryMessage binary(ByteWriter w) {
+        return new BinaryMessage(w.toByteArray());
+    }
+
+    private static void writeDrops(ByteWriter w, List<GameService.DropResult> drops) {
+        w.writeVarInt(drops.size());
+        for (GameService.DropResult d : drops) {
+            w.writeName(d.type);
+            w.writeVarInt(d.amount);
+        }
+    }
+
+    /** Monster fields in mask order, encoded once per snapshot and mask and shared by every session. */
+    private static byte[] monsterFragment(MonsterSnapshot m, int mask) {
+        byte[] frag = m.cachedFragment(MonsterSnapshot.BINARY_SLOT, mask);
+        if (frag != null) return frag;
+
+        ByteWriter w = new ByteWriter(16);
+        w.writeVarInt(m.netId());
+        w.writeByte(mask);
+        if ((mask & MonsterSnapshot.X) != 0) w.writeSignedVarInt(m.x());
+        if ((mask & MonsterSnapshot.Y) != 0) w.writeSignedVarInt(m.y());
+        if ((mask & MonsterSnapshot.HP) != 0) w.writeSignedVarInt(m.hp());
+        if ((mask & MonsterSnapshot.STATE) != 0) w.writeByte(m.state().ordinal());
+        return m.cacheFragment(MonsterSnapshot.BINARY_SLOT, mask, w.toByteArray());
+    }
+
+    @Override
+    public WebSocketMessage<?> positionUpdate(SnapshotDelta delta) {
+        ByteWriter w = new ByteWriter(32 + delta.monsters.size() * 8).writeByte(ServerEvent.POSITION_UPDATE.ordinal());
+        w.writeVarLong(delta.frame.tick);
+        // 0 = keyframe, otherwise baseline tick + 1
+        w.writeVarLong(delta.isKeyframe() ? 0 : delta.baselineTick + 1);
+
+        int self = delta.selfMask;
+        w.writeByte(self);
+        if ((self & SnapshotFrame.X) != 0) w.writeSignedVarInt(quantize(delta.frame.x));
+        if ((self & SnapshotFrame.Y) != 0) w.writeSignedVarInt(quantize(delta.frame.y));
+        if ((self & SnapshotFrame.HP) != 0) w.writeSignedVarInt(delta.frame.hp);
+        if ((self & SnapshotFrame.MAX_HP) != 0) w.writeVarInt(delta.frame.maxHp);
+        if ((self & SnapshotFrame.TIME) != 0) w.writeVarInt((int) (delta.frame.time * TIME_SCALE) & 0xFFFF);
+
+        w.writeVarInt(delta.monsters.size());
+        for (SnapshotDelta.MonsterDelta md : delta.monsters) {
+            byte[] frag = monsterFragment(md.monster(), md.mask());
+            w.writeBytes(frag, 0, frag.length);
+        }
+        w.writeVarInt(delta.left.size());
+        for (MonsterSnapshot m : delta.left) w.writeVarInt(m.netId());
+        return binary(w);
+    }
+
+    @Override
+    public WebSocketMessage<?> inventoryUpdate(Map<String, Integer> items) {
+        ByteWriter w = start(ServerEvent.INVENTORY_UPDATE);
+        w.writeVarInt(items.size());
+        for (Map.Entry<String, Integer> e : items.entrySet()) {
+            w.writeName(e.getKey());
+            w.writeVarInt(e.getValue());
+        }
+        return binary(w);
+    }
+
+    @Override
+    public WebSocketMessage<?> itemSpawn(double x, double y, List<GameService.DropResult> drops) {
+        ByteWriter w = start(ServerEvent.ITEM_SPAWN);
+        w.writeSignedVarInt(quantize(x));
+        w.writeSignedVarInt(quantize(y));
+        writeDrops(w, drops);
+        return binary(w);
+    }
+
+    @Override
+    public WebSocketMessage<?> objectPlaced(String type, int x, int y) {
+        ByteWriter w = start(ServerEvent.OBJECT_PLACED);
+        w.writeName(type);
+        w.writeSignedVarInt(x);
+        w.writeSignedVarInt(y);
+        return binary(w);
+    }
+
+    @Override
+    public WebSocketMessage<?> objectRemoved(int x, int y, List<GameService.DropResult> drops) {
+        ByteWriter w = start(ServerEvent.OBJECT_REMOVED);
+        w.writeSignedVarInt(x);
+        w.writeSignedVarInt(y);
+        writeDrops(w, drops);
+        return binary(w);
+    }
+
+    @Override
+    public WebSocketMessage<?> objectHit(int x, int y, int hp, List<GameService.DropResult> drops) {
+        ByteWriter w = start(ServerEvent.OBJECT_HIT);
+        w.writeSignedVarInt(x);
+        w.writeSignedVarInt(y);
+        w.writeSignedVarInt(hp);
+        writeDrops(w, drops);
+        return binary(w);
+    }
+
+    @Override
+    public WebSocketMessage<?> monsterHit(int x, int y, Monster monster, boolean destroyed, List<GameService.DropResult> drops) {
+        ByteWriter w = start(ServerEvent.MONSTER_HIT);
+        w.writeSignedVarInt(x);
+        w.writeSignedVarInt(y);
+        w.writeVarInt(monster.netId);
+        w.writeSignedVarInt(monster.hp);
+        w.writeByte(destroyed ? 1 : 0);
+        writeDrops(w, drops);
+        return binary(w);
+    }
+
+    @Override
+    public WebSocketMessage<?> regionSync(List<int[]> rects, List<WorldObject> objects) {
+        ByteWriter w = new ByteWriter(16 + rects.size() * 8 + objects.size() * 5).writeByte(ServerEvent.REGION_SYNC.ordinal());
+        w.writeVarInt(rects.size());
+        for (int[] r : rects) {
+            w.writeSignedVarInt(r[0]);
+            w.writeSignedVarInt(r[1]);
+            w.writeVarInt(r[2]);
+            w.writeVarInt(r[3]);
+        }
+        writeObjects(w, objects);
+        return binary(w);
+    }
+
+    @Override
+    public WebSocketMessage<?> worldChunk(int cellX, int cellY, int cellTiles, int hash, List<WorldObject> objects) {
+        ByteWriter w = new ByteWriter(16 + objects.size() * 5).writeByte(ServerEvent.WORLD_CHUNK.ordinal());
+        w.writeSignedVarInt(cellX);
+        w.writeSignedVarInt(cellY);
+        w.writeVarInt(cellTiles);
+        w.writeSignedVarInt(hash);
+        writeObjects(w, objects);
+        return binary(w);
+    }
+
+    @Override
+    public WebSocketMessage<?> worldReady(int sent, int skipped) {
+        ByteWriter w = start(ServerEvent.WORLD_READY);
+        w.writeVarInt(sent);
+        w.writeVarInt(skipped);
+        return binary(w);
+    }
+
+    private static void writeObjects(ByteWriter w, List<WorldObject> objects) {
+        w.writeVarInt(objects.size());
+        for (WorldObject obj : objects) {
+            w.writeName(obj.type);
+            w.writeSignedVarInt(obj.x);
+            w.writeSignedVarInt(obj.y);
+            w.writeSignedVarInt(obj.hp);
+        }
+    }
+}
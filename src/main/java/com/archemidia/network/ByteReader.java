@@ -0,0 +1,59 @@
+package com.archemidia.network;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reading side of {@link ByteWriter}. Malformed input surfaces as
+ * {@link IllegalArgumentException} / {@link java.nio.BufferUnderflowException}.
+ */
+public class ByteReader {
+    private final ByteBuffer buf;
+
+    public ByteReader(ByteBuffer buf) {
+        this.buf = buf;
+    }
+
+    public int readByte() {
+        return buf.get() & 0xFF;
+    }
+
+    public long readVarLong() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = buf.get() & 0xFF;
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+
+    public int readVarInt() {
+        return (int) readVarLong();
+    }
+
+    public int readSignedVarInt() {
+        int v = readVarInt();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    public String readString() {
+        int len = readVarInt();
+        if (len < 0 || len > buf.remaining()) throw new IllegalArgumentException("Bad string length " + len);
+        byte[] bytes = new byte[len];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public String readName() {
+        int idx = readVarInt();
+        if (idx == 0) return readString();
+        String name = WireNames.nameAt(idx);
+        if (name == null) throw new IllegalArgumentException("Unknown name index " + idx);
+        return name;
+    }
+
+    public boolean hasRemaining() {
+        return buf.hasRemaining();
+    }
+}
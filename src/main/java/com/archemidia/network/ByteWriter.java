@@ -0,0 +1,80 @@
+package com.archemidia.network;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer with the primitives of the binary protocol:
+ * LEB128 varints, zigzag signed varints and dictionary names.
+ */
+public class ByteWriter {
+    private byte[] buf;
+    private int pos;
+
+    public ByteWriter() {
+        this(64);
+    }
+
+    public ByteWriter(int capacity) {
+        this.buf = new byte[capacity];
+    }
+
+    private void ensure(int extra) {
+        if (pos + extra > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+    }
+
+    public ByteWriter writeByte(int b) {
+        ensure(1);
+        buf[pos++] = (byte) b;
+        return this;
+    }
+
+    public ByteWriter writeBytes(byte[] src, int off, int len) {
+        ensure(len);
+        System.arraycopy(src, off, buf, pos, len);
+        pos += len;
+        return this;
+    }
+
+    /** Unsigned LEB128. */
+    public ByteWriter writeVarLong(long v) {
+        ensure(10);
+        while ((v & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[pos++] = (byte) v;
+        return this;
+    }
+
+    public ByteWriter writeVarInt(int v) {
+        return writeVarLong(v & 0xFFFFFFFFL);
+    }
+
+    /** Zigzag-encoded signed varint, so small negatives stay small. */
+    public ByteWriter writeSignedVarInt(int v) {
+        return writeVarLong(((v << 1) ^ (v >> 31)) & 0xFFFFFFFFL);
+    }
+
+    public ByteWriter writeString(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length);
+        return writeBytes(bytes, 0, bytes.length);
+    }
+
+    /** Dictionary index, or 0 followed by the inline string. */
+    public ByteWriter writeName(String name) {
+        int idx = WireNames.indexOf(name);
+        writeVarInt(idx);
+        if (idx == 0) writeString(name == null ? "" : name);
+        return this;
+    }
+
+    public int size() { return pos; }
+    public void reset() { pos = 0; }
+    public byte[] array() { return buf; }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, pos);
+    }
+}
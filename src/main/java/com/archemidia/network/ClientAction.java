@@ -0,0 +1,54 @@
+package com.archemidia.network;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Every inbound action. The JSON protocol uses {@link #wireName}, the binary
+ * protocol sends the ordinal as the first byte, so only ever append new entries.
+ */
+public enum ClientAction {
+    REQUEST_MOVE("request_move"),
+    COLLECT_ITEM("collect_item"),
+    REMOVE_ITEM("remove_item"),
+    DROP_ITEM("drop_item"),
+    CRAFT_ITEM("craft_item"),
+    PLACE_OBJECT("place_object"),
+    PICKUP_OBJECT("pickup_object"),
+    INTERACT("interact"),
+    ACK_SNAPSHOT("ack_snapshot"),
+    REQUEST_KEYFRAME("request_keyframe"),
+    CHUNK_HASHES("chunk_hashes");
+
+    private static final ClientAction[] VALUES = values();
+    private static final Map<String, ClientAction> BY_NAME = new HashMap<>();
+
+    static {
+        for (ClientAction a : VALUES) BY_NAME.put(a.wireName, a);
+    }
+
+    public final String wireName;
+    private final char[] wireChars;
+
+    ClientAction(String wireName) {
+        this.wireName = wireName;
+        this.wireChars = wireName.toCharArray();
+    }
+
+    public static ClientAction fromWireName(String name) {
+        return BY_NAME.get(name);
+    }
+
+    /** Same as {@link #fromWireName(String)} but reads the name straight from a parser buffer. */
+    public static ClientAction fromWireName(char[] buf, int offset, int length) {
+        for (ClientAction a : VALUES) {
+            if (a.wireChars.length == length && Arrays.equals(a.wireChars, 0, length, buf, offset, offset + length)) return a;
+        }
+        return null;
+    }
+
+    public static ClientAction fromOrdinal(int ordinal) {
+        return (ordinal >= 0 && ordinal < VALUES.length) ? VALUES[ordinal] : null;
+    }
+}
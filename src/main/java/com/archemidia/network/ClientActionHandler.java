@@ -0,0 +1,19 @@
+package com.archemidia.network;
+
+/**
+ * Receives decoded client actions, independent of the wire protocol they arrived on.
+ */
+public interface ClientActionHandler {
+    void onMove(ClientConnection conn, double x, double y, long seqId);
+    void onCollectItem(ClientConnection conn, String item);
+    void onRemoveItem(ClientConnection conn, String item, int amount);
+    void onDropItem(ClientConnection conn, String item);
+    void onCraftItem(ClientConnection conn, String recipe);
+    void onPlaceObject(ClientConnection conn, String type, int x, int y);
+    void onPickupObject(ClientConnection conn, int x, int y);
+    void onInteract(ClientConnection conn, int x, int y);
+    void onAckSnapshot(ClientConnection conn, long tick);
+    void onRequestKeyframe(ClientConnection conn);
+    /** Chunks cached from an earlier session, as flat (cellX, cellY, hash) triples. */
+    void onChunkHashes(ClientConnection conn, int[] chunks);
+}
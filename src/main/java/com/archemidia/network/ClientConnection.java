@@ -0,0 +1,53 @@
+package com.archemidia.network;
+
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Everything the server keeps per connected WebSocket: the session, the negotiated
+ * protocol codec, the outbound queue, the delta snapshot state and its area-of-interest cell.
+ */
+public class ClientConnection {
+    private final WebSocketSession session;
+    private final ProtocolCodec codec;
+    private final OutboundQueue outbound;
+    private final SessionSnapshotState snapshots = new SessionSnapshotState();
+    // Tick thread only; null once the initial world download has finished
+    private WorldStream worldStream;
+
+    // Owned by AreaOfInterest (guarded by its lock): centre cell of this connection's view
+    int aoiCellX;
+    int aoiCellY;
+    boolean aoiAttached;
+
+    // Owned by InboundQueue: slot of the newest queued move, or null once another action
+    // of this session has been queued behind it. The tick thread empties the slot when it applies it.
+    volatile AtomicReference<InboundQueue.Move> openMove;
+
+    public ClientConnection(WebSocketSession session, ProtocolCodec codec, OutboundQueue outbound) {
+        this.session = session;
+        this.codec = codec;
+        this.outbound = outbound;
+    }
+
+    public String getId() { return session.getId(); }
+    public WebSocketSession getSession() { return session; }
+    public ProtocolCodec getCodec() { return codec; }
+    public SessionSnapshotState getSnapshots() { return snapshots; }
+    public OutboundQueue getOutbound() { return outbound; }
+    public WorldStream getWorldStream() { return worldStream; }
+    public void setWorldStream(WorldStream worldStream) { this.worldStream = worldStream; }
+    public boolean isOpen() { return session.isOpen(); }
+
+    /** Queues a message that must arrive, in order. Never blocks on the socket. */
+    public void send(WebSocketMessage<?> message) {
+        outbound.enqueue(message);
+    }
+
+    /** Queues a position update; an older one still waiting is dropped. */
+    public void sendPosition(WebSocketMessage<?> message) {
+        outbound.offerPosition(message);
+    }
+}
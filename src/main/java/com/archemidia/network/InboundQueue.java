@@ -0,0 +1,157 @@
+package com.archemidia.network;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands decoded client actions from the WebSocket I/O threads to the tick thread.
+ * Decoders write into this queue as their {@link ClientActionHandler}; each action becomes a
+ * command on a lock-free multi-producer queue and is only applied to the real handler by
+ * {@link #drain()}, called from the INPUT phase. Game state is therefore mutated by one thread.
+ * <ul>
+ *   <li>Moves are coalesced: a newer move overwrites the session's queued one in place, so
+ *       move spam costs one apply per session per tick. Only a move that is still the last
+ *       queued action of its session is overwritten; once e.g. an interact or place is queued
+ *       behind it, the next move goes to the tail, so a session's actions keep their order.</li>
+ *   <li>Snapshot acks and keyframe requests only touch volatile per-session state and are
+ *       applied immediately.</li>
+ *   <li>At most {@code maxPerTick} commands run per tick; the rest wait for the next tick.</li>
+ * </ul>
+ */
+public class InboundQueue implements ClientActionHandler {
+
+    record Move(double x, double y, long seqId) {}
+
+    public record Stats(int pending, long applied, long coalescedMoves, long deferredTicks) {}
+
+    private final ClientActionHandler target;
+    private final int maxPerTick;
+    private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() walks the list, so track the depth separately
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong coalescedMoves = new AtomicLong();
+
+    // Tick thread only
+    private long applied = 0;
+    private long deferredTicks = 0;
+
+    public InboundQueue(ClientActionHandler target, int maxPerTick) {
+        this.target = target;
+        this.maxPerTick = maxPerTick;
+    }
+
+    /** Queues an arbitrary command (e.g. session join/leave) to run on the tick thread in arrival order. */
+    public void submit(Runnable command) {
+        commands.add(command);
+        pending.incrementAndGet();
+    }
+
+    /**
+     * Tick thread: applies the commands that were queued when the call started, up to the per-tick cap.
+     * Commands queued while draining run on the next tick, so a session never gets two moves in one tick.
+     */
+    public void drain() {
+        int budget = Math.min(pending.get(), maxPerTick);
+        if (budget < pending.get()) deferredTicks++;
+        for (int i = 0; i < budget; i++) {
+            Runnable command = commands.poll();
+            if (command == null) break;
+            pending.decrementAndGet();
+            try {
+                command.run();
+            } catch (RuntimeException e) {
+                System.err.println(" [Input] Command failed: " + e.getMessage());
+                e.printStackTrace();
+            }
+            applied++;
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(pending.get(), applied, coalescedMoves.get(), deferredTicks);
+    }
+
+    // --- Producer side (WebSocket I/O threads) ---
+
+    // A session's messages are delivered one at a time, so only the tick thread races the
+    // producer here, and only by emptying the slot
+    @Override
+    public void onMove(ClientConnection conn, double x, double y, long seqId) {
+        Move move = new Move(x, y, seqId);
+        AtomicReference<Move> slot = conn.openMove;
+        if (slot != null) {
+            Move queued = slot.get();
+            if (queued != null && slot.compareAndSet(queued, move)) {
+                coalescedMoves.incrementAndGet();
+                return;
+            }
+        }
+        AtomicReference<Move> fresh = new AtomicReference<>(move);
+        conn.openMove = fresh;
+        submit(() -> applyMove(conn, fresh));
+    }
+
+    private void applyMove(ClientConnection conn, AtomicReference<Move> slot) {
+        Move move = slot.getAndSet(null);
+        if (move != null) target.onMove(conn, move.x(), move.y(), move.seqId());
+    }
+
+    // Queues a non-move action; a later move must not overtake it by coalescing into an earlier slot
+    private void submit(ClientConnection conn, Runnable command) {
+        conn.openMove = null;
+        submit(command);
+    }
+
+    @Override
+    public void onCollectItem(ClientConnection conn, String item) {
+        submit(conn, () -> target.onCollectItem(conn, item));
+    }
+
+    @Override
+    public void onRemoveItem(ClientConnection conn, String item, int amount) {
+        submit(conn, () -> target.onRemoveItem(conn, item, amount));
+    }
+
+    @Override
+    public void onDropItem(ClientConnection conn, String item) {
+        submit(conn, () -> target.onDropItem(conn, item));
+    }
+
+    @Override
+    public void onCraftItem(ClientConnection conn, String recipe) {
+        submit(conn, () -> target.onCraftItem(conn, recipe));
+    }
+
+    @Override
+    public void onPlaceObject(ClientConnection conn, String type, int x, int y) {
+        submit(conn, () -> target.onPlaceObject(conn, type, x, y));
+    }
+
+    @Override
+    public void onPickupObject(ClientConnection conn, int x, int y) {
+        submit(conn, () -> target.onPickupObject(conn, x, y));
+    }
+
+    @Override
+    public void onInteract(ClientConnection conn, int x, int y) {
+        submit(conn, () -> target.onInteract(conn, x, y));
+    }
+
+    @Override
+    public void onChunkHashes(ClientConnection conn, int[] chunks) {
+        submit(conn, () -> target.onChunkHashes(conn, chunks));
+    }
+
+    @Override
+    public void onAckSnapshot(ClientConnection conn, long tick) {
+        target.onAckSnapshot(conn, tick);
+    }
+
+    @Override
+    public void onRequestKeyframe(ClientConnection conn) {
+        target.onRequestKeyframe(conn);
+    }
+}
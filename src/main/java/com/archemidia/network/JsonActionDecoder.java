@@ -0,0 +1,122 @@
+package com.archemidia.network;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Decodes JSON client frames of the form {"action": "...", ...} in a single streaming pass.
+ * No tree is built: known fields are read straight into primitive slots, the action name is
+ * matched against the raw token characters, and dispatch goes through a table indexed by
+ * {@link ClientAction} ordinal. Fields may appear in any order; unknown ones are skipped.
+ * Malformed frames surface as {@link IOException} / {@link IllegalArgumentException}.
+ */
+public class JsonActionDecoder {
+
+    // Field bits, used to check that an action got everything it needs
+    private static final int F_X = 1, F_Y = 1 << 1, F_SEQ = 1 << 2, F_ITEM = 1 << 3, F_AMOUNT = 1 << 4,
+            F_RECIPE = 1 << 5, F_TYPE = 1 << 6, F_TICK = 1 << 7, F_CHUNKS = 1 << 8;
+
+    /** Per-frame decode slots. Lives on the stack of one decode call. */
+    private static final class Fields {
+        ClientAction action;
+        int present;
+        double x, y;
+        long seqId, tick;
+        int amount = 1;
+        String item, recipe, type;
+        int[] chunks;
+    }
+
+    @FunctionalInterface
+    private interface Dispatch {
+        void apply(Fields f, ClientConnection conn, ClientActionHandler handler);
+    }
+
+    private record Entry(int required, Dispatch dispatch) {}
+
+    private static final Entry[] TABLE = new Entry[ClientAction.values().length];
+
+    static {
+        entry(ClientAction.REQUEST_MOVE, F_X | F_Y | F_SEQ, (f, c, h) -> h.onMove(c, f.x, f.y, f.seqId));
+        entry(ClientAction.COLLECT_ITEM, F_ITEM, (f, c, h) -> h.onCollectItem(c, f.item));
+        entry(ClientAction.REMOVE_ITEM, F_ITEM, (f, c, h) -> h.onRemoveItem(c, f.item, f.amount));
+        entry(ClientAction.DROP_ITEM, F_ITEM, (f, c, h) -> h.onDropItem(c, f.item));
+        entry(ClientAction.CRAFT_ITEM, F_RECIPE, (f, c, h) -> h.onCraftItem(c, f.recipe));
+        entry(ClientAction.PLACE_OBJECT, F_TYPE | F_X | F_Y, (f, c, h) -> h.onPlaceObject(c, f.type, (int) f.x, (int) f.y));
+        entry(ClientAction.PICKUP_OBJECT, F_X | F_Y, (f, c, h) -> h.onPickupObject(c, (int) f.x, (int) f.y));
+        entry(ClientAction.INTERACT, F_X | F_Y, (f, c, h) -> h.onInteract(c, (int) f.x, (int) f.y));
+        entry(ClientAction.ACK_SNAPSHOT, F_TICK, (f, c, h) -> h.onAckSnapshot(c, f.tick));
+        entry(ClientAction.REQUEST_KEYFRAME, 0, (f, c, h) -> h.onRequestKeyframe(c));
+        entry(ClientAction.CHUNK_HASHES, F_CHUNKS, (f, c, h) -> h.onChunkHashes(c, f.chunks));
+    }
+
+    private static void entry(ClientAction action, int required, Dispatch dispatch) {
+        TABLE[action.ordinal()] = new Entry(required, dispatch);
+    }
+
+    private final JsonFactory factory;
+
+    public JsonActionDecoder(ObjectMapper objectMapper) {
+        this.factory = objectMapper.getFactory();
+    }
+
+    public void decode(String payload, ClientConnection conn, ClientActionHandler handler) throws IOException {
+        Fields f = new Fields();
+        try (JsonParser p = factory.createParser(payload)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) throw new IllegalArgumentException("Expected a JSON object");
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.currentName();
+                JsonToken value = p.nextToken();
+                switch (name) {
+                    case "action" -> f.action = matchAction(p);
+                    case "x" -> { f.x = p.getValueAsDouble(); f.present |= F_X; }
+                    case "y" -> { f.y = p.getValueAsDouble(); f.present |= F_Y; }
+                    case "seqId" -> { f.seqId = p.getValueAsLong(); f.present |= F_SEQ; }
+                    case "tick" -> { f.tick = p.getValueAsLong(); f.present |= F_TICK; }
+                    case "amount" -> { f.amount = p.getValueAsInt(1); f.present |= F_AMOUNT; }
+                    case "item" -> { f.item = p.getValueAsString(); f.present |= F_ITEM; }
+                    case "recipe" -> { f.recipe = p.getValueAsString(); f.present |= F_RECIPE; }
+                    case "type" -> { f.type = p.getValueAsString(); f.present |= F_TYPE; }
+                    case "chunks" -> { f.chunks = readTriples(p); f.present |= F_CHUNKS; }
+                    default -> { if (value.isStructStart()) p.skipChildren(); }
+                }
+            }
+        }
+
+        // Unknown or missing action names are ignored, as before
+        if (f.action == null) return;
+        Entry e = TABLE[f.action.ordinal()];
+        if ((f.present & e.required()) != e.required()) {
+            throw new IllegalArgumentException("Missing fields for " + f.action.wireName);
+        }
+        e.dispatch().apply(f, conn, handler);
+    }
+
+    // [[cellX, cellY, hash], ...] flattened into one int[]
+    private static int[] readTriples(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) throw new IllegalArgumentException("chunks must be an array");
+        int[] out = new int[48];
+        int n = 0;
+        while (p.nextToken() == JsonToken.START_ARRAY) {
+            if (n == WorldStream.MAX_CLIENT_HASHES * 3) throw new IllegalArgumentException("Too many chunk hashes");
+            if (n + 3 > out.length) out = Arrays.copyOf(out, out.length * 2);
+            for (int i = 0; i < 3; i++) {
+                if (p.nextToken() != JsonToken.VALUE_NUMBER_INT) throw new IllegalArgumentException("chunk entries are [cellX, cellY, hash]");
+                out[n++] = p.getIntValue();
+            }
+            if (p.nextToken() != JsonToken.END_ARRAY) throw new IllegalArgumentException("chunk entries are [cellX, cellY, hash]");
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    // Compares the raw token characters, so the action name is never materialized as a String
+    private static ClientAction matchAction(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.VALUE_STRING) return null;
+        return ClientAction.fromWireName(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+    }
+}
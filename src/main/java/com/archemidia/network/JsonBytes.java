@@ -0,0 +1,56 @@
+package com.archemidia.network;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal JSON writer on top of {@link ByteWriter}, for frames that are stitched
+ * together from pre-encoded fragments instead of built as a node tree.
+ */
+final class JsonBytes {
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private JsonBytes() {}
+
+    static void raw(ByteWriter w, String ascii) {
+        for (int i = 0; i < ascii.length(); i++) w.writeByte(ascii.charAt(i));
+    }
+
+    static void number(ByteWriter w, long v) {
+        raw(w, Long.toString(v));
+    }
+
+    static void number(ByteWriter w, double v) {
+        raw(w, Double.toString(v));
+    }
+
+    static void string(ByteWriter w, String s) {
+        w.writeByte('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                w.writeByte('\\').writeByte(c);
+            } else if (c < 0x20) {
+                w.writeByte('\\').writeByte('u').writeByte('0').writeByte('0')
+                        .writeByte(HEX[c >> 4]).writeByte(HEX[c & 0xF]);
+            } else if (c < 0x80) {
+                w.writeByte(c);
+            } else {
+                byte[] utf8 = String.valueOf(c).getBytes(StandardCharsets.UTF_8);
+                if (Character.isHighSurrogate(c) && i + 1 < s.length()) {
+                    utf8 = s.substring(i, i + 2).getBytes(StandardCharsets.UTF_8);
+                    i++;
+                }
+                w.writeBytes(utf8, 0, utf8.length);
+            }
+        }
+        w.writeByte('"');
+    }
+
+    /** Writes {@code ,"name":} (or without the comma for the first field). */
+    static void field(ByteWriter w, String name, boolean first) {
+        if (!first) w.writeByte(',');
+        w.writeByte('"');
+        raw(w, name);
+        w.writeByte('"').writeByte(':');
+    }
+}
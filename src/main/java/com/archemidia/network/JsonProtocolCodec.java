@@ -0,0 +1,217 @@
+package com.archemidia.network;
+
+import com.archemidia.model.Monster;
+import com.archemidia.model.WorldObject;
+import com.archemidia.service.GameService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The original JSON text protocol, kept for browser and debugging clients.
+ */
+public class JsonProtocolCodec implements ProtocolCodec {
+    private final ObjectMapper objectMapper;
+
+    public JsonProtocolCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    private ObjectNode event(ServerEvent event) {
+        ObjectNode msg = objectMapper.createObjectNode();
+        msg.put("event", event.wireName);
+        return msg;
+    }
+
+    private void putDrops(ObjectNode msg, List<GameService.DropResult> drops) {
+        ArrayNode dropsNode = msg.putArray("drops");
+        for (GameService.DropResult d : drops) {
+            ObjectNode dNode = dropsNode.addObject();
+            dNode.put("type", d.type);
+            dNode.put("amount", d.amount);
+        }
+    }
+
+    private TextMessage text(ObjectNode msg) {
+        return new TextMessage(msg.toString());
+    }
+
+    /**
+     * Assembled from bytes rather than a node tree: the header is written per session, each
+     * monster entry is a fragment cached on its {@link MonsterSnapshot} and reused by every
+     * session that needs the same fields this tick.
+     */
+    @Override
+    public WebSocketMessage<?> positionUpdate(SnapshotDelta delta) {
+        // Keyframes carry every field; deltas only what changed since the acknowledged baseline
+        SnapshotFrame f = delta.frame;
+        ByteWriter w = new ByteWriter(128 + delta.monsters.size() * 64);
+        w.writeByte('{');
+        JsonBytes.field(w, "event", true);
+        JsonBytes.string(w, ServerEvent.POSITION_UPDATE.wireName);
+        JsonBytes.field(w, "tick", false);
+        JsonBytes.number(w, f.tick);
+        if (delta.isKeyframe()) {
+            JsonBytes.field(w, "keyframe", false);
+            JsonBytes.raw(w, "true");
+        } else {
+            JsonBytes.field(w, "baseline", false);
+            JsonBytes.number(w, delta.baselineTick);
+        }
+
+        int self = delta.selfMask;
+        if ((self & SnapshotFrame.X) != 0) { JsonBytes.field(w, "x", false); JsonBytes.number(w, f.x); }
+        if ((self & SnapshotFrame.Y) != 0) { JsonBytes.field(w, "y", false); JsonBytes.number(w, f.y); }
+        if ((self & SnapshotFrame.TIME) != 0) { JsonBytes.field(w, "time", false); JsonBytes.number(w, f.time); }
+        if ((self & SnapshotFrame.HP) != 0) { JsonBytes.field(w, "hp", false); JsonBytes.number(w, f.hp); }
+        if ((self & SnapshotFrame.MAX_HP) != 0) { JsonBytes.field(w, "maxHp", false); JsonBytes.number(w, f.maxHp); }
+
+        if (delta.isKeyframe() || !delta.monsters.isEmpty()) {
+            JsonBytes.field(w, "monsters", false);
+            w.writeByte('[');
+            boolean first = true;
+            for (SnapshotDelta.MonsterDelta md : delta.monsters) {
+                if (!first) w.writeByte(',');
+                first = false;
+                byte[] frag = monsterFragment(md.monster(), md.mask());
+                w.writeBytes(frag, 0, frag.length);
+            }
+            w.writeByte(']');
+        }
+        if (!delta.left.isEmpty()) {
+            JsonBytes.field(w, "left", false);
+            w.writeByte('[');
+            boolean first = true;
+            for (MonsterSnapshot m : delta.left) {
+                if (!first) w.writeByte(',');
+                first = false;
+                JsonBytes.string(w, m.id());
+            }
+            w.writeByte(']');
+        }
+        w.writeByte('}');
+        return new TextMessage(w.toByteArray());
+    }
+
+    private static byte[] monsterFragment(MonsterSnapshot m, int mask) {
+        byte[] frag = m.cachedFragment(MonsterSnapshot.JSON_SLOT, mask);
+        if (frag != null) return frag;
+
+        ByteWriter w = new ByteWriter(64);
+        w.writeByte('{');
+        JsonBytes.field(w, "id", true);
+        JsonBytes.string(w, m.id());
+        if ((mask & MonsterSnapshot.X) != 0) { JsonBytes.field(w, "x", false); JsonBytes.number(w, m.x()); }
+        if ((mask & MonsterSnapshot.Y) != 0) { JsonBytes.field(w, "y", false); JsonBytes.number(w, m.y()); }
+        if ((mask & MonsterSnapshot.HP) != 0) { JsonBytes.field(w, "hp", false); JsonBytes.number(w, m.hp()); }
+        if ((mask & MonsterSnapshot.STATE) != 0) { JsonBytes.field(w, "state", false); JsonBytes.string(w, m.state().toString()); }
+        w.writeByte('}');
+        return m.cacheFragment(MonsterSnapshot.JSON_SLOT, mask, w.toByteArray());
+    }
+
+    @Override
+    public WebSocketMessage<?> inventoryUpdate(Map<String, Integer> items) {
+        ObjectNode invMsg = event(ServerEvent.INVENTORY_UPDATE);
+        invMsg.putPOJO("items", items);
+        return text(invMsg);
+    }
+
+    @Override
+    public WebSocketMessage<?> itemSpawn(double x, double y, List<GameService.DropResult> drops) {
+        ObjectNode msg = event(ServerEvent.ITEM_SPAWN);
+        msg.put("x", x);
+        msg.put("y", y);
+        putDrops(msg, drops);
+        return text(msg);
+    }
+
+    @Override
+    public WebSocketMessage<?> objectPlaced(String type, int x, int y) {
+        ObjectNode msg = event(ServerEvent.OBJECT_PLACED);
+        msg.put("type", type);
+        msg.put("x", x);
+        msg.put("y", y);
+        return text(msg);
+    }
+
+    @Override
+    public WebSocketMessage<?> objectRemoved(int x, int y, List<GameService.DropResult> drops) {
+        ObjectNode msg = event(ServerEvent.OBJECT_REMOVED);
+        msg.put("x", x);
+        msg.put("y", y);
+        putDrops(msg, drops);
+        return text(msg);
+    }
+
+    @Override
+    public WebSocketMessage<?> objectHit(int x, int y, int hp, List<GameService.DropResult> drops) {
+        ObjectNode msg = event(ServerEvent.OBJECT_HIT);
+        msg.put("x", x);
+        msg.put("y", y);
+        msg.put("hp", hp);
+        putDrops(msg, drops);
+        return text(msg);
+    }
+
+    @Override
+    public WebSocketMessage<?> monsterHit(int x, int y, Monster monster, boolean destroyed, List<GameService.DropResult> drops) {
+        ObjectNode msg = event(ServerEvent.MONSTER_HIT);
+        msg.put("x", x);
+        msg.put("y", y);
+        msg.put("id", monster.id);
+        msg.put("hp", monster.hp);
+        if (destroyed) msg.put("destroyed", true);
+        putDrops(msg, drops);
+        return text(msg);
+    }
+
+    @Override
+    public WebSocketMessage<?> regionSync(List<int[]> rects, List<WorldObject> objects) {
+        ObjectNode msg = event(ServerEvent.REGION_SYNC);
+        ArrayNode regions = msg.putArray("regions");
+        for (int[] r : rects) {
+            ObjectNode rNode = regions.addObject();
+            rNode.put("x", r[0]);
+            rNode.put("y", r[1]);
+            rNode.put("w", r[2]);
+            rNode.put("h", r[3]);
+        }
+        putObjects(msg, objects);
+        return text(msg);
+    }
+
+    @Override
+    public WebSocketMessage<?> worldChunk(int cellX, int cellY, int cellTiles, int hash, List<WorldObject> objects) {
+        ObjectNode msg = event(ServerEvent.WORLD_CHUNK);
+        msg.put("cx", cellX);
+        msg.put("cy", cellY);
+        msg.put("size", cellTiles);
+        msg.put("hash", hash);
+        putObjects(msg, objects);
+        return text(msg);
+    }
+
+    @Override
+    public WebSocketMessage<?> worldReady(int sent, int skipped) {
+        ObjectNode msg = event(ServerEvent.WORLD_READY);
+        msg.put("sent", sent);
+        msg.put("skipped", skipped);
+        return text(msg);
+    }
+
+    private void putObjects(ObjectNode msg, List<WorldObject> objects) {
+        ArrayNode arr = msg.putArray("objects");
+        for (WorldObject obj : objects) {
+            ObjectNode n = arr.addObject();
+            n.put("type", obj.type);
+            n.put("x", obj.x);
+            n.put("y", obj.y);
+            n.put("hp", obj.hp);
+        }
+    }
+}
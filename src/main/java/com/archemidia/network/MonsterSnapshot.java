@@ -0,0 +1,79 @@
+package com.archemidia.network;
+
+import com.archemidia.model.Monster;
+import com.archemidia.model.MonsterPool;
+
+/**
+ * Immutable copy of the replicated monster fields, captured once per network tick.
+ * Unchanged monsters keep the same instance across ticks, so diffs can short-circuit on identity.
+ * Each instance also caches its encoded form per protocol and field mask, so an entity is
+ * serialized once no matter how many sessions see it.
+ */
+public final class MonsterSnapshot {
+
+    public static final int X = 1;
+    public static final int Y = 1 << 1;
+    public static final int HP = 1 << 2;
+    public static final int STATE = 1 << 3;
+    public static final int ALL = X | Y | HP | STATE;
+
+    // Fragment cache slots, one per codec
+    public static final int JSON_SLOT = 0;
+    public static final int BINARY_SLOT = 1;
+    private static final int SLOTS = 2;
+
+    private final String id;
+    private final int netId;
+    private final int x;
+    private final int y;
+    private final int hp;
+    private final Monster.State state;
+
+    // Only touched from the tick thread during BROADCAST
+    private byte[][] fragments;
+
+    public MonsterSnapshot(String id, int netId, int x, int y, int hp, Monster.State state) {
+        this.id = id;
+        this.netId = netId;
+        this.x = x;
+        this.y = y;
+        this.hp = hp;
+        this.state = state;
+    }
+
+    public static MonsterSnapshot of(MonsterPool pool, int slot) {
+        return new MonsterSnapshot(pool.id[slot], pool.handle(slot), pool.x[slot], pool.y[slot], pool.hp[slot], pool.stateOf(slot));
+    }
+
+    public String id() { return id; }
+    public int netId() { return netId; }
+    public int x() { return x; }
+    public int y() { return y; }
+    public int hp() { return hp; }
+    public Monster.State state() { return state; }
+
+    public boolean matches(MonsterPool pool, int slot) {
+        return x == pool.x[slot] && y == pool.y[slot] && hp == pool.hp[slot] && state == pool.stateOf(slot);
+    }
+
+    /** Bitmask of the fields that differ from {@code base}. */
+    public int changedSince(MonsterSnapshot base) {
+        if (base == this) return 0;
+        int mask = 0;
+        if (x != base.x) mask |= X;
+        if (y != base.y) mask |= Y;
+        if (hp != base.hp) mask |= HP;
+        if (state != base.state) mask |= STATE;
+        return mask;
+    }
+
+    public byte[] cachedFragment(int slot, int mask) {
+        return fragments == null ? null : fragments[slot * (ALL + 1) + mask];
+    }
+
+    public byte[] cacheFragment(int slot, int mask, byte[] encoded) {
+        if (fragments == null) fragments = new byte[SLOTS * (ALL + 1)][];
+        fragments[slot * (ALL + 1) + mask] = encoded;
+        return encoded;
+    }
+}
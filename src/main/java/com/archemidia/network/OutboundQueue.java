@@ -0,0 +1,148 @@
+package com.archemidia.network;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * Bounded, asynchronously drained send queue for one session.
+ * <ul>
+ *   <li>Reliable messages (inventory, object and region events) are delivered in order.</li>
+ *   <li>Position updates are droppable: a newer one replaces a stale one still waiting,
+ *       and they always go out after the pending reliable messages.</li>
+ * </ul>
+ * Senders never block on the socket. At most one drain task per session runs at a time,
+ * which also satisfies the WebSocket rule of one concurrent send per session. A client
+ * whose reliable backlog reaches the high-water mark is disconnected.
+ */
+public class OutboundQueue {
+    // Messages sent per drain task before yielding the worker to other sessions
+    private static final int DRAIN_BATCH = 64;
+
+    // Served on the public stats endpoint: no session id, which doubles as the player id
+    public record Stats(int depth, int maxDepth, long sent, long droppedPositions, boolean closed) {}
+
+    private final WebSocketSession session;
+    private final Executor executor;
+    private final int highWaterMark;
+
+    // Guarded by this
+    private final ArrayDeque<WebSocketMessage<?>> reliable = new ArrayDeque<>();
+    private WebSocketMessage<?> latestPosition;
+    private boolean scheduled;
+    private boolean closed;
+    private int maxDepth;
+    private long sent;
+    private long droppedPositions;
+
+    public OutboundQueue(WebSocketSession session, Executor executor, int highWaterMark) {
+        this.session = session;
+        this.executor = executor;
+        this.highWaterMark = highWaterMark;
+    }
+
+    public void enqueue(WebSocketMessage<?> message) {
+        boolean overflow = false;
+        boolean schedule = false;
+        synchronized (this) {
+            if (closed) return;
+            if (reliable.size() >= highWaterMark) {
+                overflow = true;
+                discard();
+            } else {
+                reliable.add(message);
+                maxDepth = Math.max(maxDepth, depth());
+                schedule = markScheduled();
+            }
+        }
+        if (overflow) {
+            System.err.println(" [Net] Session " + session.getId() + " exceeded " + highWaterMark + " queued messages, disconnecting.");
+            executor.execute(() -> closeSession(CloseStatus.SESSION_NOT_RELIABLE));
+        } else if (schedule) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /** Queues a position update, replacing the previous one if it has not been sent yet. */
+    public void offerPosition(WebSocketMessage<?> message) {
+        boolean schedule;
+        synchronized (this) {
+            if (closed) return;
+            if (latestPosition != null) droppedPositions++;
+            latestPosition = message;
+            maxDepth = Math.max(maxDepth, depth());
+            schedule = markScheduled();
+        }
+        if (schedule) executor.execute(this::drain);
+    }
+
+    /** Drops everything still queued; called once the session is gone. */
+    public synchronized void close() {
+        discard();
+    }
+
+    private void discard() {
+        closed = true;
+        reliable.clear();
+        latestPosition = null;
+    }
+
+    private boolean markScheduled() {
+        if (scheduled) return false;
+        scheduled = true;
+        return true;
+    }
+
+    private int depth() {
+        return reliable.size() + (latestPosition != null ? 1 : 0);
+    }
+
+    private void drain() {
+        for (int i = 0; i < DRAIN_BATCH; i++) {
+            WebSocketMessage<?> next;
+            synchronized (this) {
+                next = reliable.poll();
+                if (next == null) {
+                    next = latestPosition;
+                    latestPosition = null;
+                }
+                if (next == null || closed) {
+                    scheduled = false;
+                    return;
+                }
+            }
+            try {
+                session.sendMessage(next);
+                synchronized (this) { sent++; }
+            } catch (IOException | RuntimeException e) {
+                // Anything escaping here would leave the queue marked scheduled with no drain running
+                System.err.println(" [Net] Send to " + session.getId() + " failed: " + e.getMessage());
+                close();
+                closeSession(CloseStatus.SERVER_ERROR);
+                return;
+            }
+        }
+        // Backlog left: requeue behind other sessions instead of hogging this worker
+        executor.execute(this::drain);
+    }
+
+    private void closeSession(CloseStatus status) {
+        try {
+            if (session.isOpen()) session.close(status);
+        } catch (IOException e) {
+            // Already going away
+        }
+    }
+
+    public synchronized int getDepth() {
+        return depth();
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(depth(), maxDepth, sent, droppedPositions, closed);
+    }
+}
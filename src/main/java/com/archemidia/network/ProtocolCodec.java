@@ -0,0 +1,32 @@
+package com.archemidia.network;
+
+import com.archemidia.model.Monster;
+import com.archemidia.model.WorldObject;
+import com.archemidia.service.GameService;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes outbound events for one wire protocol. Implementations are stateless
+ * and shared between sessions.
+ */
+public interface ProtocolCodec {
+    WebSocketMessage<?> positionUpdate(SnapshotDelta delta);
+    WebSocketMessage<?> inventoryUpdate(Map<String, Integer> items);
+    WebSocketMessage<?> itemSpawn(double x, double y, List<GameService.DropResult> drops);
+    WebSocketMessage<?> objectPlaced(String type, int x, int y);
+    WebSocketMessage<?> objectRemoved(int x, int y, List<GameService.DropResult> drops);
+    WebSocketMessage<?> objectHit(int x, int y, int hp, List<GameService.DropResult> drops);
+    WebSocketMessage<?> monsterHit(int x, int y, Monster monster, boolean destroyed, List<GameService.DropResult> drops);
+
+    /** Authoritative contents of the given tile rectangles; replaces whatever the client held there. */
+    WebSocketMessage<?> regionSync(List<int[]> rects, List<WorldObject> objects);
+
+    /** One cell of the initial world stream; {@code hash} lets the client cache it for the next session. */
+    WebSocketMessage<?> worldChunk(int cellX, int cellY, int cellTiles, int hash, List<WorldObject> objects);
+
+    /** Ends the initial world stream. */
+    WebSocketMessage<?> worldReady(int sent, int skipped);
+}
@@ -0,0 +1,24 @@
+package com.archemidia.network;
+
+/**
+ * Every outbound event. The JSON protocol uses {@link #wireName} as the "event"
+ * field, the binary protocol sends the ordinal as the first byte, so only ever append.
+ */
+public enum ServerEvent {
+    POSITION_UPDATE("position_update"),
+    INVENTORY_UPDATE("inventory_update"),
+    ITEM_SPAWN("item_spawn"),
+    OBJECT_PLACED("object_placed"),
+    OBJECT_REMOVED("object_removed"),
+    OBJECT_HIT("object_hit"),
+    MONSTER_HIT("monster_hit"),
+    REGION_SYNC("region_sync"),
+    WORLD_CHUNK("world_chunk"),
+    WORLD_READY("world_ready");
+
+    public final String wireName;
+
+    ServerEvent(String wireName) {
+        this.wireName = wireName;
+    }
+}
@@ -0,0 +1,94 @@
+package com.archemidia.network;
+
+import com.archemidia.util.LongObjectMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-session delta compression state.
+ * Remembers the last {@value #HISTORY} frames sent and the newest tick the client
+ * acknowledged; each new frame is diffed against that acknowledged frame. Clients that
+ * never acknowledge simply keep receiving keyframes.
+ * Frames key their monsters by netId; the maps of frames that drop out of the history are
+ * handed out again by {@link #newVisibleMap()}, so a session does not allocate one per tick.
+ */
+public class SessionSnapshotState {
+    private static final int HISTORY = 32;
+
+    private final SnapshotFrame[] history = new SnapshotFrame[HISTORY];
+    private volatile long ackedTick = -1;
+    private volatile boolean keyframeRequested = true;
+    private long lastSentTick = -1;
+    private long lastKeyframeTick = -1;
+    // Tick thread only: maps of evicted frames, no longer reachable as a baseline
+    private final ArrayDeque<LongObjectMap<MonsterSnapshot>> spareMaps = new ArrayDeque<>();
+
+    // Called from the I/O thread
+    public void acknowledge(long tick) {
+        if (tick > ackedTick) ackedTick = tick;
+    }
+
+    public void requestKeyframe() {
+        keyframeRequested = true;
+    }
+
+    private SnapshotFrame baseline() {
+        long acked = ackedTick;
+        if (acked < 0 || acked > lastSentTick) return null;
+        SnapshotFrame f = history[(int) (acked % HISTORY)];
+        return (f != null && f.tick == acked) ? f : null;
+    }
+
+    /** An empty map to fill with this tick's visible monsters and pass to {@link #next}, which keeps it. */
+    public LongObjectMap<MonsterSnapshot> newVisibleMap() {
+        LongObjectMap<MonsterSnapshot> map = spareMaps.poll();
+        if (map == null) return new LongObjectMap<>();
+        map.clear();
+        return map;
+    }
+
+    /** Records the frame for this tick and returns what has to be sent for it. */
+    public SnapshotDelta next(long tick, double x, double y, int hp, int maxHp, double time,
+                              LongObjectMap<MonsterSnapshot> visible, int keyframeInterval) {
+        SnapshotFrame base = baseline();
+        boolean keyframe = keyframeRequested || base == null || tick - lastKeyframeTick >= keyframeInterval;
+
+        SnapshotDelta delta;
+        if (keyframe) {
+            SnapshotFrame frame = new SnapshotFrame(tick, x, y, hp, maxHp, time, visible);
+            List<SnapshotDelta.MonsterDelta> all = new ArrayList<>(visible.size());
+            visible.forEachValue(m -> all.add(new SnapshotDelta.MonsterDelta(m, MonsterSnapshot.ALL)));
+            delta = new SnapshotDelta(frame, -1, SnapshotFrame.ALL, all, Collections.emptyList());
+            keyframeRequested = false;
+            lastKeyframeTick = tick;
+        } else {
+            SnapshotFrame probe = new SnapshotFrame(tick, x, y, hp, maxHp, time, visible);
+            int selfMask = probe.changedSince(base);
+            // Unsent time stays at the client's value so later diffs compare against what it really has
+            SnapshotFrame frame = (selfMask & SnapshotFrame.TIME) != 0 ? probe
+                    : new SnapshotFrame(tick, x, y, hp, maxHp, base.time, visible);
+
+            List<SnapshotDelta.MonsterDelta> changed = new ArrayList<>();
+            visible.forEachValue(m -> {
+                MonsterSnapshot old = base.monsters.get(m.netId());
+                int mask = old == null ? MonsterSnapshot.ALL : m.changedSince(old);
+                if (mask != 0) changed.add(new SnapshotDelta.MonsterDelta(m, mask));
+            });
+            List<MonsterSnapshot> left = new ArrayList<>();
+            base.monsters.forEachValue(old -> {
+                if (!visible.containsKey(old.netId())) left.add(old);
+            });
+            delta = new SnapshotDelta(frame, base.tick, selfMask, changed, left);
+        }
+
+        int slot = (int) (tick % HISTORY);
+        SnapshotFrame evicted = history[slot];
+        if (evicted != null && evicted.monsters != visible) spareMaps.add(evicted.monsters);
+        history[slot] = delta.frame;
+        lastSentTick = tick;
+        return delta;
+    }
+}
@@ -0,0 +1,31 @@
+package com.archemidia.network;
+
+import java.util.List;
+
+/**
+ * The part of a {@link SnapshotFrame} a client does not have yet.
+ * A keyframe ({@code baselineTick == -1}) carries every field; otherwise only the
+ * changed player fields, the monsters that entered or changed and the monsters that left.
+ */
+public class SnapshotDelta {
+
+    public record MonsterDelta(MonsterSnapshot monster, int mask) {}
+
+    public final SnapshotFrame frame;
+    public final long baselineTick;
+    public final int selfMask;
+    public final List<MonsterDelta> monsters;
+    public final List<MonsterSnapshot> left;
+
+    public SnapshotDelta(SnapshotFrame frame, long baselineTick, int selfMask, List<MonsterDelta> monsters, List<MonsterSnapshot> left) {
+        this.frame = frame;
+        this.baselineTick = baselineTick;
+        this.selfMask = selfMask;
+        this.monsters = monsters;
+        this.left = left;
+    }
+
+    public boolean isKeyframe() {
+        return baselineTick < 0;
+    }
+}
@@ -0,0 +1,49 @@
+package com.archemidia.network;
+
+import com.archemidia.util.LongObjectMap;
+
+/**
+ * What one session was sent on one network tick. Kept in a small per-session
+ * history so the next frame can be diffed against whatever the client acknowledged.
+ */
+public class SnapshotFrame {
+    public static final int X = 1;
+    public static final int Y = 1 << 1;
+    public static final int HP = 1 << 2;
+    public static final int MAX_HP = 1 << 3;
+    public static final int TIME = 1 << 4;
+    public static final int ALL = X | Y | HP | MAX_HP | TIME;
+
+    // Game time drifts every tick; only resend it once it moved by roughly a game minute
+    private static final double TIME_EPSILON = 1.0 / 1440.0;
+
+    public final long tick;
+    public final double x;
+    public final double y;
+    public final int hp;
+    public final int maxHp;
+    public final double time;
+    // Keyed by netId
+    public final LongObjectMap<MonsterSnapshot> monsters;
+
+    public SnapshotFrame(long tick, double x, double y, int hp, int maxHp, double time, LongObjectMap<MonsterSnapshot> monsters) {
+        this.tick = tick;
+        this.x = x;
+        this.y = y;
+        this.hp = hp;
+        this.maxHp = maxHp;
+        this.time = time;
+        this.monsters = monsters;
+    }
+
+    /** Bitmask of the player fields that differ from {@code base}. */
+    public int changedSince(SnapshotFrame base) {
+        int mask = 0;
+        if (x != base.x) mask |= X;
+        if (y != base.y) mask |= Y;
+        if (hp != base.hp) mask |= HP;
+        if (maxHp != base.maxHp) mask |= MAX_HP;
+        if (Math.abs(time - base.time) >= TIME_EPSILON || time < base.time) mask |= TIME;
+        return mask;
+    }
+}
@@ -0,0 +1,34 @@
+package com.archemidia.network;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fixed dictionary of item ids and object types for the binary protocol.
+ * Known names travel as a single varint index; index 0 is followed by the name as
+ * an inline UTF-8 string, so new content works before the table is updated.
+ * Indices are part of the protocol: only append.
+ */
+public final class WireNames {
+    private static final String[] NAMES = {
+            null, // 0 = inline string
+            "Wood", "Stone", "Rope", "Pickaxe", "Hoe", "Crafting Table", "Bonfire", "Fence",
+            "Tree", "Snow Tree", "Snow Rock", "Palm Tree", "Sand Rock", "Cactus", "Trunk", "Slime"
+    };
+    private static final Map<String, Integer> INDEX = new HashMap<>();
+
+    static {
+        for (int i = 1; i < NAMES.length; i++) INDEX.put(NAMES[i], i);
+    }
+
+    private WireNames() {}
+
+    public static int indexOf(String name) {
+        Integer i = INDEX.get(name);
+        return i == null ? 0 : i;
+    }
+
+    public static String nameAt(int index) {
+        return (index > 0 && index < NAMES.length) ? NAMES[index] : null;
+    }
+}
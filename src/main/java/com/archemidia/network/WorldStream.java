@@ -0,0 +1,77 @@
+package com.archemidia.network;
+
+import com.archemidia.model.WorldObject;
+import com.archemidia.util.LongObjectMap;
+import com.archemidia.util.TileKey;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Progress of the initial world download for one connection.
+ * The world is cut into the same cells as {@link AreaOfInterest}; cells are visited nearest
+ * to the spawn first and handed out a few per tick by the broadcast loop. A client that
+ * reports the content hashes it cached in an earlier session (chunk_hashes) skips every cell
+ * whose hash still matches. Tick thread only.
+ */
+public class WorldStream {
+    // Far more cells than the map has; bounds what a hostile chunk_hashes frame can allocate
+    public static final int MAX_CLIENT_HASHES = 4096;
+
+    private final long[] order;
+    private int next = 0;
+    // Cell key -> hash the client already holds
+    private final LongObjectMap<Integer> clientHashes = new LongObjectMap<>();
+    private int sent = 0;
+    private int skipped = 0;
+
+    /** Orders {@code cells} (packed cell keys) by distance from cell (centerX, centerY). */
+    public WorldStream(long[] cells, int centerX, int centerY) {
+        // Sort primitive keys of (distance^2 << 32 | index) instead of boxing a comparator
+        long[] keyed = new long[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            long dx = TileKey.unpackX(cells[i]) - centerX;
+            long dy = TileKey.unpackY(cells[i]) - centerY;
+            keyed[i] = ((dx * dx + dy * dy) << 32) | i;
+        }
+        Arrays.sort(keyed);
+        this.order = new long[cells.length];
+        for (int i = 0; i < keyed.length; i++) order[i] = cells[(int) keyed[i]];
+    }
+
+    /** Records the client's cached chunks as flat (cellX, cellY, hash) triples. */
+    public void setClientHashes(int[] triples) {
+        for (int i = 0; i + 2 < triples.length; i += 3) {
+            clientHashes.put(TileKey.pack(triples[i], triples[i + 1]), triples[i + 2]);
+        }
+    }
+
+    public boolean isDone() { return next >= order.length; }
+    public long nextCell() { return order[next++]; }
+
+    /**
+     * True when the cell does not need to go out: the client cached exactly this content,
+     * or the cell is empty and the client holds nothing for it.
+     */
+    public boolean canSkip(long cell, int hash, boolean empty) {
+        Integer cached = clientHashes.get(cell);
+        return cached != null ? cached == hash : empty;
+    }
+
+    public void markSent() { sent++; }
+    public void markSkipped() { skipped++; }
+    public int getSent() { return sent; }
+    public int getSkipped() { return skipped; }
+
+    /** Content hash of a chunk, stable across restarts. Objects must be in collectInRect order. */
+    public static int hash(List<WorldObject> objects) {
+        int h = 0;
+        for (WorldObject o : objects) {
+            h = 31 * h + o.type.hashCode();
+            h = 31 * h + o.x;
+            h = 31 * h + o.y;
+            h = 31 * h + o.hp;
+        }
+        return h;
+    }
+}
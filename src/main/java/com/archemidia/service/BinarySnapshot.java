@@ -0,0 +1,415 @@
+package com.archemidia.service;
+
+import com.archemidia.model.Monster;
+import com.archemidia.model.PlayerState;
+import com.archemidia.model.WorldObject;
+import com.archemidia.model.item.Item;
+import com.archemidia.model.item.ItemStack;
+import com.archemidia.util.TileKey;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Versioned binary snapshot of {@link PersistenceService.SaveData}.
+ * <pre>
+ * header:  "ARCW" | u16 version | u16 section count | i64 walSegment
+ * section: u8 id | u8 flags (1 = deflated) | i32 raw length | i32 stored length | i32 crc32(stored) | bytes
+ * </pre>
+ * Sections are columnar: STRINGS holds every distinct string once, the entity sections store
+ * one column per field (all x values, then all y values, ...) and refer to strings by index.
+ * Little-endian throughout. Loaded straight out of a {@link MappedByteBuffer}.
+ */
+public final class BinarySnapshot {
+    private static final int MAGIC = 0x57435241; // "ARCW" read little-endian
+    private static final int VERSION = 1;
+
+    private static final int SECTION_STRINGS = 1;
+    private static final int SECTION_OBJECTS = 2;
+    private static final int SECTION_MONSTERS = 3;
+    private static final int SECTION_PLAYERS = 4;
+    // Baseline version + generated objects removed from it
+    private static final int SECTION_BASELINE = 5;
+
+    private static final int FLAG_DEFLATED = 1;
+    private static final int NO_STRING = -1;
+
+    private BinarySnapshot() {}
+
+    // --- Encoding ---
+
+    /**
+     * Encodes the raw sections. Cheap enough for the tick thread; compression and file I/O
+     * are left to {@link Encoded#writeTo}, which can run anywhere.
+     */
+    public static Encoded encode(PersistenceService.SaveData data) {
+        Strings strings = new Strings();
+        ByteBuffer objects = encodeObjects(data.objects, strings);
+        ByteBuffer monsters = encodeMonsters(data.monsters, strings);
+        ByteBuffer players = encodePlayers(data.players, strings);
+        return new Encoded(data.walSegment, new int[]{SECTION_STRINGS, SECTION_OBJECTS, SECTION_MONSTERS, SECTION_PLAYERS, SECTION_BASELINE},
+                new ByteBuffer[]{strings.encode(), objects, monsters, players, encodeBaseline(data.baselineVersion, data.removed)});
+    }
+
+    // removed holds flattened (x, y) pairs; stored as an x column and a y column
+    private static ByteBuffer encodeBaseline(int version, int[] removed) {
+        int n = removed.length / 2;
+        ByteBuffer b = allocate(8 + n * 2 * 4);
+        b.putInt(version).putInt(n);
+        for (int i = 0; i < n; i++) b.putInt(removed[i * 2]);
+        for (int i = 0; i < n; i++) b.putInt(removed[i * 2 + 1]);
+        return b.flip();
+    }
+
+    private static ByteBuffer encodeObjects(Map<String, WorldObject> objects, Strings strings) {
+        List<WorldObject> list = new ArrayList<>(objects.values());
+        int n = list.size();
+        ByteBuffer b = allocate(4 + n * 7 * 4);
+        b.putInt(n);
+        for (WorldObject o : list) b.putInt(strings.id(o.type));
+        for (WorldObject o : list) b.putInt(o.x);
+        for (WorldObject o : list) b.putInt(o.y);
+        for (WorldObject o : list) b.putInt(o.hp);
+        for (WorldObject o : list) b.putInt(o.maxHp);
+        for (WorldObject o : list) b.putInt(strings.id(o.ownerId));
+        // Generated ids follow "type_x_y"; only store the ones that do not
+        Map<String, String> prefixes = new HashMap<>();
+        for (WorldObject o : list) {
+            String prefix = prefixes.computeIfAbsent(o.type, t -> t.toLowerCase() + "_");
+            b.putInt(isDefaultId(o, prefix) ? NO_STRING : strings.id(o.id));
+        }
+        return b.flip();
+    }
+
+    private static ByteBuffer encodeMonsters(Map<String, Monster> monsters, Strings strings) {
+        List<Monster> list = new ArrayList<>(monsters.values());
+        int n = list.size();
+        ByteBuffer b = allocate(4 + n * (9 * 4 + 8));
+        b.putInt(n);
+        for (Monster m : list) b.putInt(strings.id(m.id));
+        for (Monster m : list) b.putInt(strings.id(m.type));
+        for (Monster m : list) b.putInt(m.x);
+        for (Monster m : list) b.putInt(m.y);
+        for (Monster m : list) b.putInt(m.hp);
+        for (Monster m : list) b.putInt(m.maxHp);
+        for (Monster m : list) b.putDouble(m.speed);
+        for (Monster m : list) b.putInt(m.personality.ordinal());
+        for (Monster m : list) b.putInt(m.isAggravated ? 1 : 0);
+        for (Monster m : list) b.putInt(strings.id(m.targetPlayerId));
+        return b.flip();
+    }
+
+    private static ByteBuffer encodePlayers(Map<String, PlayerState> players, Strings strings) {
+        List<PlayerState> list = new ArrayList<>(players.values());
+        int n = list.size();
+        int stacks = 0;
+        for (PlayerState p : list) stacks += p.getInventory().size();
+        ByteBuffer b = allocate(4 + n * (6 * 4 + 2 * 8) + stacks * 8);
+        b.putInt(n);
+        for (PlayerState p : list) b.putInt(strings.id(p.getPlayerId()));
+        for (PlayerState p : list) b.putDouble(p.getX());
+        for (PlayerState p : list) b.putDouble(p.getY());
+        for (PlayerState p : list) b.putInt(p.getHp());
+        for (PlayerState p : list) b.putInt(p.getMaxHp());
+        for (PlayerState p : list) b.putInt(p.getFacingDirection());
+        // Inventory: a count column, then every (item, count) pair in player order
+        for (PlayerState p : list) b.putInt(p.getInventory().size());
+        for (PlayerState p : list) {
+            for (ItemStack s : p.getInventory()) {
+                b.putInt(strings.id(s.getItem().getId()));
+                b.putInt(s.getCount());
+            }
+        }
+        return b.flip();
+    }
+
+    // Same as id.equals(defaultId(o)) without building the string
+    private static boolean isDefaultId(WorldObject o, String prefix) {
+        String id = o.id;
+        if (id == null || !id.startsWith(prefix)) return false;
+        int sep = id.indexOf('_', prefix.length() + 1);
+        if (sep < 0) return false;
+        try {
+            return Integer.parseInt(id, prefix.length(), sep, 10) == o.x
+                    && Integer.parseInt(id, sep + 1, id.length(), 10) == o.y
+                    && id.length() == prefix.length() + Integer.toString(o.x).length() + 1 + Integer.toString(o.y).length();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static String defaultId(WorldObject o) {
+        return o.type.toLowerCase() + "_" + o.x + "_" + o.y;
+    }
+
+    private static ByteBuffer allocate(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /** Interning string table, written as the STRINGS section. */
+    private static final class Strings {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<byte[]> values = new ArrayList<>();
+        private int bytes = 0;
+
+        int id(String s) {
+            if (s == null) return NO_STRING;
+            Integer id = ids.get(s);
+            if (id != null) return id;
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            values.add(utf8);
+            bytes += utf8.length;
+            ids.put(s, values.size() - 1);
+            return values.size() - 1;
+        }
+
+        ByteBuffer encode() {
+            ByteBuffer b = allocate(4 + values.size() * 4 + bytes);
+            b.putInt(values.size());
+            for (byte[] v : values) b.putInt(v.length);
+            for (byte[] v : values) b.put(v);
+            return b.flip();
+        }
+    }
+
+    /** Encoded sections, ready to be written. */
+    public static final class Encoded {
+        private final long walSegment;
+        private final int[] ids;
+        private final ByteBuffer[] sections;
+
+        private Encoded(long walSegment, int[] ids, ByteBuffer[] sections) {
+            this.walSegment = walSegment;
+            this.ids = ids;
+            this.sections = sections;
+        }
+
+        /** Writes header and sections with one gathering write; optionally deflates each section. */
+        public void writeTo(File file, boolean deflate, boolean fsync) throws IOException {
+            ByteBuffer[] out = new ByteBuffer[1 + sections.length * 2];
+            out[0] = allocate(16).putInt(MAGIC).putShort((short) VERSION).putShort((short) sections.length).putLong(walSegment).flip();
+            CRC32 crc = new CRC32();
+            for (int i = 0; i < sections.length; i++) {
+                ByteBuffer raw = sections[i].duplicate();
+                ByteBuffer stored = deflate ? deflate(raw.duplicate()) : raw;
+                crc.reset();
+                crc.update(stored.duplicate());
+                out[1 + i * 2] = allocate(14)
+                        .put((byte) ids[i])
+                        .put((byte) (deflate ? FLAG_DEFLATED : 0))
+                        .putInt(raw.remaining())
+                        .putInt(stored.remaining())
+                        .putInt((int) crc.getValue())
+                        .flip();
+                out[2 + i * 2] = stored;
+            }
+            try (FileOutputStream fos = new FileOutputStream(file); FileChannel ch = fos.getChannel()) {
+                long remaining = 0;
+                for (ByteBuffer b : out) remaining += b.remaining();
+                while (remaining > 0) remaining -= ch.write(out);
+                if (fsync) ch.force(true);
+            }
+        }
+
+        private static ByteBuffer deflate(ByteBuffer raw) {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                deflater.setInput(raw);
+                deflater.finish();
+                ByteBuffer out = ByteBuffer.allocate(Math.max(64, raw.remaining() / 2));
+                while (!deflater.finished()) {
+                    if (!out.hasRemaining()) {
+                        ByteBuffer bigger = ByteBuffer.allocate(out.capacity() * 2);
+                        bigger.put(out.flip());
+                        out = bigger;
+                    }
+                    deflater.deflate(out);
+                }
+                return out.flip();
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+
+    // --- Decoding ---
+
+    public static boolean isBinarySnapshot(File file) throws IOException {
+        if (file.length() < 4) return false;
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer b = allocate(4);
+            ch.read(b, 0);
+            return b.flip().getInt() == MAGIC;
+        }
+    }
+
+    /** Maps {@code file} and rebuilds the save. Fails with {@link IOException} on any checksum or layout error. */
+    public static PersistenceService.SaveData read(File file, Function<String, Item> items) throws IOException {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            ByteBuffer in = mapped.order(ByteOrder.LITTLE_ENDIAN);
+            try {
+                if (in.getInt() != MAGIC) throw new IOException("Not a binary snapshot");
+                int version = in.getShort() & 0xFFFF;
+                if (version != VERSION) throw new IOException("Unsupported snapshot version " + version);
+                int sectionCount = in.getShort() & 0xFFFF;
+
+                PersistenceService.SaveData data = new PersistenceService.SaveData();
+                data.walSegment = in.getLong();
+                String[] strings = new String[0];
+                for (int i = 0; i < sectionCount; i++) {
+                    int id = in.get() & 0xFF;
+                    ByteBuffer body = section(in);
+                    switch (id) {
+                        case SECTION_STRINGS -> strings = decodeStrings(body);
+                        case SECTION_OBJECTS -> decodeObjects(body, strings, data.objects);
+                        case SECTION_MONSTERS -> decodeMonsters(body, strings, data.monsters);
+                        case SECTION_PLAYERS -> decodePlayers(body, strings, items, data.players);
+                        case SECTION_BASELINE -> decodeBaseline(body, data);
+                        default -> { } // Section from a newer writer: skip
+                    }
+                }
+                return data;
+            } catch (RuntimeException e) {
+                // BufferUnderflow, bad indices, ...
+                throw new IOException("Malformed snapshot: " + e, e);
+            }
+        }
+    }
+
+    // Reads one section header, verifies it and returns its (inflated) body
+    private static ByteBuffer section(ByteBuffer in) throws IOException {
+        int flags = in.get() & 0xFF;
+        int rawLength = in.getInt();
+        int storedLength = in.getInt();
+        int expectedCrc = in.getInt();
+        ByteBuffer stored = in.slice().limit(storedLength);
+        in.position(in.position() + storedLength);
+
+        CRC32 crc = new CRC32();
+        crc.update(stored.duplicate());
+        if ((int) crc.getValue() != expectedCrc) throw new IOException("Snapshot section checksum mismatch");
+
+        if ((flags & FLAG_DEFLATED) == 0) return stored.order(ByteOrder.LITTLE_ENDIAN);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored);
+            ByteBuffer raw = ByteBuffer.allocate(rawLength);
+            while (raw.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(raw) == 0 && inflater.needsInput()) break;
+            }
+            if (raw.hasRemaining()) throw new IOException("Truncated compressed section");
+            return raw.flip().order(ByteOrder.LITTLE_ENDIAN);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt compressed section", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static String[] decodeStrings(ByteBuffer b) {
+        int n = b.getInt();
+        int[] lengths = new int[n];
+        for (int i = 0; i < n; i++) lengths[i] = b.getInt();
+        String[] out = new String[n];
+        byte[] tmp = new byte[64];
+        for (int i = 0; i < n; i++) {
+            if (lengths[i] > tmp.length) tmp = new byte[lengths[i]];
+            b.get(tmp, 0, lengths[i]);
+            out[i] = new String(tmp, 0, lengths[i], StandardCharsets.UTF_8);
+        }
+        return out;
+    }
+
+    private static String str(String[] strings, int id) {
+        return id == NO_STRING ? null : strings[id];
+    }
+
+    private static void decodeBaseline(ByteBuffer b, PersistenceService.SaveData data) {
+        data.baselineVersion = b.getInt();
+        int n = b.getInt();
+        int[] removed = new int[n * 2];
+        for (int i = 0; i < n; i++) removed[i * 2] = b.getInt();
+        for (int i = 0; i < n; i++) removed[i * 2 + 1] = b.getInt();
+        data.removed = removed;
+    }
+
+    private static void decodeObjects(ByteBuffer b, String[] strings, Map<String, WorldObject> out) {
+        int n = b.getInt();
+        WorldObject[] objs = new WorldObject[n];
+        for (int i = 0; i < n; i++) {
+            objs[i] = new WorldObject();
+            objs[i].type = strings[b.getInt()];
+        }
+        for (int i = 0; i < n; i++) objs[i].x = b.getInt();
+        for (int i = 0; i < n; i++) objs[i].y = b.getInt();
+        for (int i = 0; i < n; i++) objs[i].hp = b.getInt();
+        for (int i = 0; i < n; i++) objs[i].maxHp = b.getInt();
+        for (int i = 0; i < n; i++) objs[i].ownerId = str(strings, b.getInt());
+        for (int i = 0; i < n; i++) {
+            int id = b.getInt();
+            WorldObject o = objs[i];
+            o.id = id == NO_STRING ? defaultId(o) : strings[id];
+            out.put(TileKey.toLegacyKey(o.x, o.y), o);
+        }
+    }
+
+    private static void decodeMonsters(ByteBuffer b, String[] strings, Map<String, Monster> out) {
+        int n = b.getInt();
+        Monster[] ms = new Monster[n];
+        for (int i = 0; i < n; i++) {
+            ms[i] = new Monster();
+            ms[i].id = strings[b.getInt()];
+        }
+        for (int i = 0; i < n; i++) ms[i].type = strings[b.getInt()];
+        for (int i = 0; i < n; i++) ms[i].x = b.getInt();
+        for (int i = 0; i < n; i++) ms[i].y = b.getInt();
+        for (int i = 0; i < n; i++) ms[i].hp = b.getInt();
+        for (int i = 0; i < n; i++) ms[i].maxHp = b.getInt();
+        for (int i = 0; i < n; i++) ms[i].speed = b.getDouble();
+        Monster.Personality[] personalities = Monster.Personality.values();
+        for (int i = 0; i < n; i++) ms[i].personality = personalities[b.getInt()];
+        for (int i = 0; i < n; i++) ms[i].isAggravated = b.getInt() != 0;
+        for (int i = 0; i < n; i++) {
+            ms[i].targetPlayerId = str(strings, b.getInt());
+            out.put(ms[i].id, ms[i]);
+        }
+    }
+
+    private static void decodePlayers(ByteBuffer b, String[] strings, Function<String, Item> items, Map<String, PlayerState> out) {
+        int n = b.getInt();
+        PlayerState[] ps = new PlayerState[n];
+        for (int i = 0; i < n; i++) ps[i] = new PlayerState(strings[b.getInt()], 0, 0);
+        for (int i = 0; i < n; i++) ps[i].setX(b.getDouble());
+        for (int i = 0; i < n; i++) ps[i].setY(b.getDouble());
+        for (int i = 0; i < n; i++) ps[i].setHp(b.getInt());
+        for (int i = 0; i < n; i++) ps[i].setMaxHp(b.getInt());
+        for (int i = 0; i < n; i++) ps[i].setFacingDirection(b.getInt());
+        int[] stacks = new int[n];
+        for (int i = 0; i < n; i++) stacks[i] = b.getInt();
+        for (int i = 0; i < n; i++) {
+            for (int s = 0; s < stacks[i]; s++) {
+                Item item = items.apply(strings[b.getInt()]);
+                int count = b.getInt();
+                if (item != null && count > 0) ps[i].addItem(item, count);
+            }
+            out.put(ps[i].getPlayerId(), ps[i]);
+        }
+    }
+}
@@ -1,12 +1,19 @@
 package com.archemidia.service;
 
+import com.archemidia.model.CollisionMap;
+import com.archemidia.model.FlowField;
 import com.archemidia.model.Monster;
+import com.archemidia.model.MonsterPool;
 import com.archemidia.model.PlayerState;
 import com.archemidia.model.WorldObject;
+import com.archemidia.model.WorldObjectIndex;
 import com.archemidia.model.item.Item;
+import com.archemidia.util.IntList;
+import com.archemidia.util.RaycastUtil;
+import com.archemidia.util.SpatialHashGrid;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -18,17 +25,53 @@ import java.util.concurrent.ThreadLocalRandom;
 public class GameService {
 
     private final Map<String, PlayerState> playerStates = new ConcurrentHashMap<>();
-    private final Map<String, WorldObject> activeObjects = new ConcurrentHashMap<>();
-    private final Map<String, Monster> activeMonsters = new ConcurrentHashMap<>();
+    private final WorldObjectIndex activeObjects;
+    private final TerrainService terrain;
+    private final CollisionMap collisionMap;
+    private final SpatialHashGrid<PlayerState> playerGrid = new SpatialHashGrid<>(GRID_CELL_SIZE);
+    // [NEW] Live monsters as primitive columns with int handles; Monster is only their saved/JSON form
+    private final MonsterPool monsters = new MonsterPool(GRID_CELL_SIZE);
+    // Only touched by client commands, which the tick thread applies (see InboundQueue)
     private final List<String> destroyedObjectIds = new ArrayList<>();
     private final Queue<PlayerState> offlinePlayers = new ConcurrentLinkedQueue<>();
 
     private final PersistenceService persistenceService;
+    private final MutationLog mutationLog;
+    private final long checkpointIntervalMs;
+    private final long checkpointBytes;
+    private long lastCheckpoint = System.currentTimeMillis();
     private final ItemRegistry itemRegistry; // [NEW]
 
-    private final int TILE_SIZE = 64;
+    public static final int TILE_SIZE = 64;
     private final double PLAYER_RADIUS = 5.0;
-    private final int MAX_MONSTERS = 10;
+    private final int maxMonsters;
+    private final MonsterAiExecutor monsterAi;
+    // [NEW] One field toward each chased player; written on the tick thread only, read by AI workers
+    private final Map<String, FlowField> flowFields = new HashMap<>();
+    private final int flowFieldRadius;
+    // [NEW] Simulation LOD: full rate near players, every midInterval ticks further out, asleep beyond
+    private final double lodNearPx;
+    private final double lodMidPx;
+    private final int lodMidInterval;
+    private long aiTick = 0;
+    // Swapped each tick: this tick's awake set and the previous one, reused to keep the tick allocation-free
+    private IntList awakeMonsters = new IntList();
+    private IntList previouslyAwake = new IntList();
+    private final IntList dueMonsters = new IntList();
+    private final IntList lodScratch = new IntList();
+    // Counters of the last tick for getAiStats, which builds the record only when it is read
+    private volatile int statMonsters, statNear, statAwake, statFlowFields;
+    // [NEW] Object types that can be seen through (low or see-through); everything else blocks line of sight
+    private final Set<String> transparentTypes;
+    // [NEW] Perception: aggressive monsters without a target look for players, a budgeted slice per tick
+    private final double sightPx;
+    private final int perceptionBudget;
+    private int perceptionCursor = 0;
+    private final List<PlayerState> sightScratch = new ArrayList<>();
+    private double[] sightX = new double[8], sightY = new double[8];
+    private boolean[] sightVisible = new boolean[8];
+
+    public record AiStats(int monsters, int near, int mid, int asleep, int flowFields) {}
     private final double CHASE_STOP_DIST = 10 * 64.0;
     private final double ATTACK_RANGE = 30.0;
     private final long ATTACK_COOLDOWN = 1000;
@@ -37,41 +80,89 @@ public class GameService {
     private final long EVADE_COOLDOWN = 2000;
 
     public static final int MAP_RADIUS = 100;
-    private final int SNOW_LIMIT = -30;
-    private final int SAND_LIMIT = 30;
+    private static final int GRID_CELL_SIZE = 4 * 64;
 
     // [UPDATED Constructor]
-    public GameService(PersistenceService persistenceService, ItemRegistry itemRegistry) {
+    public GameService(PersistenceService persistenceService, ItemRegistry itemRegistry, GameTickLoop tickLoop, TerrainService terrain,
+                       @Value("${game.wal.checkpoint-interval-ms:300000}") long checkpointIntervalMs,
+                       @Value("${game.wal.checkpoint-bytes:4194304}") long checkpointBytes,
+                       @Value("${game.monsters.max:10}") int maxMonsters,
+                       @Value("${game.ai.region-tiles:16}") int aiRegionTiles,
+                       @Value("${game.ai.threads:0}") int aiThreads,
+                       @Value("${game.ai.parallel-threshold:256}") int aiParallelThreshold,
+                       @Value("${game.ai.flow-field-radius-tiles:16}") int flowFieldRadius,
+                       @Value("${game.ai.lod.near-px:1500}") double lodNearPx,
+                       @Value("${game.ai.lod.mid-px:3000}") double lodMidPx,
+                       @Value("${game.ai.lod.mid-interval-ticks:4}") int lodMidInterval,
+                       @Value("${game.los.transparent-types:Fence,Bonfire,Crafting Table,Trunk}") String[] transparentTypes,
+                       @Value("${game.ai.perception.sight-tiles:8}") int sightTiles,
+                       @Value("${game.ai.perception.budget:32}") int perceptionBudget) {
         this.persistenceService = persistenceService;
+        this.mutationLog = persistenceService.getMutationLog();
         this.itemRegistry = itemRegistry;
+        this.checkpointIntervalMs = checkpointIntervalMs;
+        this.checkpointBytes = checkpointBytes;
+        this.terrain = terrain;
+        // Terrain never changes after startup; the collision raster reads the shared biome raster directly
+        this.collisionMap = new CollisionMap(terrain.getRadius(), terrain.getRaster());
+        this.activeObjects = new WorldObjectIndex(new WorldBaseline(terrain));
+        this.maxMonsters = maxMonsters;
+        this.monsterAi = new MonsterAiExecutor(aiRegionTiles * TILE_SIZE, aiThreads, aiParallelThreshold);
+        this.flowFieldRadius = flowFieldRadius;
+        // Nothing on the map is further apart than its diameter; larger radii would only scan empty grid cells
+        double mapDiameter = 2.0 * MAP_RADIUS * TILE_SIZE;
+        this.lodNearPx = Math.min(lodNearPx, mapDiameter);
+        this.lodMidPx = Math.min(Math.max(lodMidPx, lodNearPx), mapDiameter);
+        this.lodMidInterval = Math.max(1, lodMidInterval);
+        this.transparentTypes = Set.of(transparentTypes);
+        this.sightPx = sightTiles * TILE_SIZE;
+        this.perceptionBudget = Math.max(1, perceptionBudget);
+        tickLoop.register(GameTickLoop.Phase.AI, tick -> gameLoop());
+        tickLoop.register(GameTickLoop.Phase.AI, tick -> checkpointIfDue());
     }
 
     @PostConstruct
     public void init() {
-        PersistenceService.SaveData data = persistenceService.loadData();
+        PersistenceService.SaveData data = persistenceService.loadData(activeObjects);
+        rebuildOccupancy();
         if (data != null) {
-            if (data.objects != null) this.activeObjects.putAll(data.objects);
-            if (data.monsters != null) this.activeMonsters.putAll(data.monsters);
+            if (data.monsters != null) {
+                long now = System.currentTimeMillis();
+                for (Monster m : data.monsters.values()) {
+                    int handle = monsters.add(m);
+                    // Nobody has seen them since the save
+                    if (handle != MonsterPool.NONE) monsters.asleepSince[MonsterPool.slot(handle)] = now;
+                }
+            }
             if (data.players != null) {
                 this.offlinePlayers.addAll(data.players.values());
             }
-            System.out.println(" [GameService] Loaded " + activeObjects.size() + " objects, " + activeMonsters.size() + " monsters, " + offlinePlayers.size() + " saved players.");
-        }
-
-        if (activeObjects.isEmpty()) {
-            System.out.println(" [GameService] World is empty. Generating new terrain...");
-            initializeFixedMap();
+            System.out.println(" [GameService] Loaded " + activeObjects.size() + " objects in " + activeObjects.materializedChunks() + " materialized chunks, "
+                    + monsters.size() + " monsters, " + offlinePlayers.size() + " saved players.");
+        } else {
+            System.out.println(" [GameService] No save found. Starting from the generated world.");
+            // Record the baseline version right away
+            checkpoint();
         }
     }
 
     @PreDestroy
     public void cleanup() {
-        persistenceService.saveData(activeObjects, collectAllPlayersForSave(), activeMonsters);
+        // The tick loop has already stopped, so nothing mutates the world concurrently
+        monsterAi.shutdown();
+        checkpoint();
+    }
+
+    // Mutations stream into the log continuously; compact it into a fresh snapshot when it gets old or large
+    private void checkpointIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastCheckpoint < checkpointIntervalMs && mutationLog.getBytesInSegment() < checkpointBytes) return;
+        checkpoint();
     }
 
-    @Scheduled(fixedRate = 30000)
-    public void autoSave() {
-        persistenceService.saveData(activeObjects, collectAllPlayersForSave(), activeMonsters);
+    private void checkpoint() {
+        lastCheckpoint = System.currentTimeMillis();
+        persistenceService.checkpoint(activeObjects, collectAllPlayersForSave(), monsters.views());
     }
 
     private Map<String, PlayerState> collectAllPlayersForSave() {
@@ -82,66 +173,274 @@ public class GameService {
         return all;
     }
 
-    private double getHashNoise(int x, int y) {
-        long seed = 12345;
-        long n = (long)x * 331 + (long)y * 433 + seed;
-        n = (n << 13) ^ n;
-        n = (n * (n * n * 15731 + 789221) + 1376312589) & 0x7fffffff;
-        return (double) n / 2147483647.0;
-    }
-
     public int getTerrainAt(int x, int y) {
-        if (x * x + y * y > MAP_RADIUS * MAP_RADIUS) return -1;
-        double boundaryNoise = (getHashNoise(x, 0) - 0.5) * 10.0;
-        if (y < SNOW_LIMIT + boundaryNoise) return 2;
-        if (y > SAND_LIMIT + boundaryNoise) return 1;
-        return 0;
+        return terrain.getTerrain(x, y);
     }
 
-    private void initializeFixedMap() {
-        activeObjects.clear();
+    // Generated objects are implicit in the index, so their occupancy comes from the probe
+    private void rebuildOccupancy() {
+        collisionMap.clearOccupancy();
         for (int x = -MAP_RADIUS; x <= MAP_RADIUS; x++) {
             for (int y = -MAP_RADIUS; y <= MAP_RADIUS; y++) {
-                if (x * x + y * y > MAP_RADIUS * MAP_RADIUS) continue;
-                int biome = getTerrainAt(x, y);
-                if (biome == -1) continue;
-                if (x > -5 && x < 5 && y > -5 && y < 5) continue;
-
-                double r = getHashNoise(x, y);
-
-                if (biome == 2) {
-                    if (r < 0.025) addObject("Snow Tree", x, y);
-                    else if (r < 0.035) addObject("Snow Rock", x, y);
-                } else if (biome == 1) {
-                    if (r < 0.008) addObject("Palm Tree", x, y);
-                    else if (r < 0.018) addObject("Sand Rock", x, y);
-                    else if (r < 0.035) addObject("Cactus", x, y);
-                } else {
-                    if (r < 0.025) addObject("Tree", x, y);
-                    else if (r < 0.035) addObject("Stone", x, y);
-                    else if (r < 0.045) addObject("Trunk", x, y);
-                }
+                String type = activeObjects.typeAt(x, y);
+                if (type == null) continue;
+                collisionMap.setOccupied(x, y, true);
+                collisionMap.setOpaque(x, y, isOpaque(type));
             }
         }
     }
 
-    private void addObject(String type, int x, int y) {
-        String key = x + "_" + y;
-        activeObjects.put(key, new WorldObject(type, x, y));
+    private boolean isOpaque(String objectType) {
+        return !transparentTypes.contains(objectType);
+    }
+
+    // All object inserts/removals go through these two so the occupancy raster and region dirty marks stay in sync
+    private void putObject(WorldObject obj) {
+        activeObjects.put(obj);
+        collisionMap.setOccupied(obj.x, obj.y, true);
+        collisionMap.setOpaque(obj.x, obj.y, isOpaque(obj.type));
+        persistenceService.markRegionDirty(obj.x, obj.y);
+        invalidateFlowFields(obj.x, obj.y);
     }
 
-    @Scheduled(fixedRate = 50)
+    private void removeObject(WorldObject obj) {
+        activeObjects.remove(obj.x, obj.y);
+        collisionMap.setOccupied(obj.x, obj.y, false);
+        collisionMap.setOpaque(obj.x, obj.y, false);
+        persistenceService.markRegionDirty(obj.x, obj.y);
+        invalidateFlowFields(obj.x, obj.y);
+    }
+
+    // Inventory changes go through these two so every one of them reaches the mutation log
+    private void giveItem(PlayerState player, Item item, int amount) {
+        player.addItem(item, amount);
+        mutationLog.itemAdded(player.getPlayerId(), item.getId(), amount);
+        persistenceService.markPlayerDirty(player.getPlayerId());
+    }
+
+    private void takeItem(PlayerState player, String itemId, int amount) {
+        player.removeItem(itemId, amount);
+        mutationLog.itemRemoved(player.getPlayerId(), itemId, amount);
+        persistenceService.markPlayerDirty(player.getPlayerId());
+    }
+
+    // Player HP changes go through here so they reach the mutation log and the next checkpoint
+    private void damagePlayer(PlayerState player, int amount) {
+        int before = player.getHp();
+        player.damage(amount);
+        if (player.getHp() == before) return; // Invulnerable, or already at 0
+        mutationLog.playerHp(player.getPlayerId(), player.getHp());
+        persistenceService.markPlayerDirty(player.getPlayerId());
+    }
+
+    // AI phase of the tick loop
     public void gameLoop() {
         long now = System.currentTimeMillis();
-        if (activeMonsters.size() < MAX_MONSTERS) {
+        if (monsters.size() < maxMonsters) {
             if (ThreadLocalRandom.current().nextDouble() < 0.02) {
                 spawnRandomMonster();
             }
         }
-        for (Monster monster : activeMonsters.values()) {
-            if (monster.hp <= 0) continue;
-            updateMonsterAI(monster, now);
+        IntList due = selectMonstersToUpdate(now);
+        perceive();
+        refreshFlowFields();
+        // Regions update in parallel; everything that reaches outside a monster is merged below
+        List<MonsterAiExecutor.Effects> effects = monsterAi.run(monsters, due, (handle, fx) -> {
+            int s = MonsterPool.slot(handle);
+            if (monsters.hp[s] <= 0) return;
+            updateMonsterAI(s, now, fx);
+        });
+        for (MonsterAiExecutor.Effects fx : effects) {
+            IntList moved = fx.getMoved();
+            for (int i = 0; i < moved.size(); i++) monsters.relocate(moved.get(i));
+            for (MonsterAiExecutor.PlayerHit hit : fx.getHits()) {
+                damagePlayer(hit.target(), hit.damage());
+                if (hit.knockbackMs() > 0) hit.target().triggerKnockback(hit.knockbackMs());
+            }
+        }
+    }
+
+    // --- Simulation LOD ---
+
+    // Finds the monsters near players (the rest sleep), wakes the ones that just came into range
+    // and returns the handles due this tick. Cost follows the populated area, not the monster count.
+    private IntList selectMonstersToUpdate(long now) {
+        MonsterPool m = monsters;
+        aiTick++;
+        IntList previous = awakeMonsters;
+        IntList awake = previouslyAwake;
+        awake.clear();
+        for (PlayerState p : playerStates.values()) {
+            lodScratch.clear();
+            m.queryRadius(p.getX(), p.getY(), lodMidPx, lodScratch);
+            for (int i = 0; i < lodScratch.size(); i++) {
+                int h = lodScratch.get(i), s = MonsterPool.slot(h);
+                boolean near = getDistance(m.x[s], m.y[s], p.getX(), p.getY()) <= lodNearPx;
+                if (m.lodTick[s] != aiTick) {
+                    m.lodTick[s] = aiTick;
+                    m.simStep[s] = near ? 1 : lodMidInterval;
+                    awake.add(h);
+                } else if (near) {
+                    m.simStep[s] = 1;
+                }
+            }
+        }
+        for (int i = 0; i < previous.size(); i++) {
+            int h = previous.get(i);
+            if (m.isAlive(h) && m.lodTick[MonsterPool.slot(h)] != aiTick) m.asleepSince[MonsterPool.slot(h)] = now;
+        }
+        awakeMonsters = awake;
+        previouslyAwake = previous;
+
+        IntList due = dueMonsters;
+        due.clear();
+        int near = 0;
+        for (int i = 0; i < awake.size(); i++) {
+            int h = awake.get(i), s = MonsterPool.slot(h);
+            if (m.asleepSince[s] != 0) wakeMonster(s, now);
+            if (m.simStep[s] == 1) {
+                near++;
+                due.add(h);
+            } else if ((aiTick + h) % lodMidInterval == 0) {
+                due.add(h); // Staggered so mid-range monsters spread over the interval
+            }
+        }
+        statMonsters = m.size();
+        statNear = near;
+        statAwake = awake.size();
+        statFlowFields = flowFields.size();
+        return due;
+    }
+
+    // Catch-up for a monster nobody was near: any chase has long ended, and it has wandered a
+    // little (wander legs of about 2 tiles every ~5 s in random directions, capped at 3 tiles)
+    private void wakeMonster(int s, long now) {
+        MonsterPool m = monsters;
+        long slept = now - m.asleepSince[s];
+        m.asleepSince[s] = 0;
+        PlayerState target = m.target[s] != null ? playerStates.get(m.target[s]) : null;
+        if (target == null || getDistance(m.x[s], m.y[s], target.getX(), target.getY()) > CHASE_STOP_DIST) {
+            m.target[s] = null;
+            m.aggravated[s] = (m.personality[s] == MonsterPool.AGGRESSIVE);
+        }
+        m.state[s] = MonsterPool.IDLE;
+        m.dx[s] = 0; m.dy[s] = 0;
+        m.stateTimer[s] = now + ThreadLocalRandom.current().nextLong(0, 2000);
+
+        double drift = Math.min(2.0 * TILE_SIZE * Math.sqrt(slept / 5000.0), 3.0 * TILE_SIZE);
+        if (drift < 1) return;
+        double angle = ThreadLocalRandom.current().nextDouble(0, Math.PI * 2);
+        double x = m.x[s] + Math.cos(angle) * drift, y = m.y[s] + Math.sin(angle) * drift;
+        if (!isBlocked(x, y)) m.move(s, (int) x, (int) y);
+    }
+
+    // Any thread; the counters come from the last tick but are not read as one atomic set
+    public AiStats getAiStats() {
+        int monsters = statMonsters, near = statNear, awake = statAwake;
+        return new AiStats(monsters, near, awake - near, monsters - awake, statFlowFields);
+    }
+
+    // --- Perception ---
+
+    // Round-robin over the pool: at most perceptionBudget awake, aggressive, untargeted monsters
+    // look around per tick, so the raycasts per tick stay bounded however many monsters there are.
+    // Skipping the others is one array read each, and the scan stops after one lap.
+    private void perceive() {
+        MonsterPool m = monsters;
+        int n = m.size();
+        if (n == 0 || playerStates.isEmpty()) return;
+        int looked = 0;
+        for (int scanned = 0; scanned < n && looked < perceptionBudget; scanned++) {
+            if (perceptionCursor >= n) perceptionCursor = 0;
+            int s = MonsterPool.slot(m.handleAt(perceptionCursor++));
+            // Asleep means no player is within the LOD range, let alone in sight
+            if (m.lodTick[s] != aiTick || m.hp[s] <= 0) continue;
+            if (m.personality[s] != MonsterPool.AGGRESSIVE || m.target[s] != null) continue;
+            looked++;
+            PlayerState seen = nearestVisiblePlayer(m.x[s], m.y[s]);
+            if (seen != null) {
+                m.target[s] = seen.getPlayerId();
+                m.aggravated[s] = true;
+            }
+        }
+    }
+
+    // Nearest living player within sight range with a clear line of sight, or null
+    private PlayerState nearestVisiblePlayer(double x, double y) {
+        sightScratch.clear();
+        int n = playerGrid.queryRadius(x, y, sightPx, sightScratch);
+        if (n == 0) return null;
+        if (sightX.length < n) {
+            sightX = new double[n];
+            sightY = new double[n];
+            sightVisible = new boolean[n];
+        }
+        for (int i = 0; i < n; i++) {
+            sightX[i] = sightScratch.get(i).getX();
+            sightY[i] = sightScratch.get(i).getY();
+        }
+        if (RaycastUtil.lineOfSight(collisionMap, x, y, sightX, sightY, n, sightPx, sightVisible) == 0) return null;
+
+        PlayerState best = null;
+        double bestDist = Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            PlayerState p = sightScratch.get(i);
+            if (!sightVisible[i] || p.getHp() <= 0) continue;
+            double d = getDistance(x, y, sightX[i], sightY[i]);
+            if (d < bestDist) {
+                bestDist = d;
+                best = p;
+            }
+        }
+        return best;
+    }
+
+    // --- Flow Fields ---
+
+    // Keeps a current field for every chased player and drops the rest; a field is rebuilt only
+    // when its player changed tile or a tile inside it changed walkability
+    private void refreshFlowFields() {
+        MonsterPool m = monsters;
+        Set<String> chased = new HashSet<>();
+        for (int i = 0; i < awakeMonsters.size(); i++) {
+            int s = MonsterPool.slot(awakeMonsters.get(i));
+            if (m.hp[s] > 0 && m.aggravated[s] && m.target[s] != null) chased.add(m.target[s]);
+        }
+        flowFields.keySet().retainAll(chased);
+        for (String playerId : chased) {
+            PlayerState player = playerStates.get(playerId);
+            if (player == null) {
+                flowFields.remove(playerId);
+                continue;
+            }
+            int tx = (int) Math.floor(player.getX() / TILE_SIZE);
+            int ty = (int) Math.floor(player.getY() / TILE_SIZE);
+            FlowField field = flowFields.computeIfAbsent(playerId, id -> new FlowField(flowFieldRadius));
+            if (field.needsBuild(tx, ty)) field.build(collisionMap, tx, ty);
+        }
+    }
+
+    private void invalidateFlowFields(int x, int y) {
+        for (FlowField field : flowFields.values()) {
+            if (field.covers(x, y)) field.markDirty();
+        }
+    }
+
+    // Toward the center of the next tile on the target's flow field; straight at the target once
+    // on its tile, or when the field has no path from here
+    private double chaseAngle(int s, PlayerState target) {
+        MonsterPool m = monsters;
+        FlowField field = flowFields.get(target.getPlayerId());
+        if (field != null) {
+            int tx = Math.floorDiv(m.x[s], TILE_SIZE), ty = Math.floorDiv(m.y[s], TILE_SIZE);
+            int d = field.directionAt(tx, ty);
+            if (d != FlowField.NONE) {
+                double nextX = (tx + FlowField.stepX(d)) * TILE_SIZE + TILE_SIZE / 2.0;
+                double nextY = (ty + FlowField.stepY(d)) * TILE_SIZE + TILE_SIZE / 2.0;
+                return Math.atan2(nextY - m.y[s], nextX - m.x[s]);
+            }
         }
+        return Math.atan2(target.getY() - m.y[s], target.getX() - m.x[s]);
     }
 
     private void spawnRandomMonster() {
@@ -174,153 +473,174 @@ public class GameService {
         }
     }
 
-    private void updateMonsterAI(Monster m, long now) {
+    // Runs on an AI worker: writes only slot s of the pool, everything else goes through fx
+    private void updateMonsterAI(int s, long now, MonsterAiExecutor.Effects fx) {
+        MonsterPool m = monsters;
         PlayerState target = null;
-        if (m.targetPlayerId != null) {
-            target = playerStates.get(m.targetPlayerId);
+        if (m.target[s] != null) {
+            target = playerStates.get(m.target[s]);
             if (target == null) {
-                m.targetPlayerId = null;
-                m.isAggravated = (m.personality == Monster.Personality.AGGRESSIVE);
-                m.state = Monster.State.IDLE;
+                m.target[s] = null;
+                m.aggravated[s] = (m.personality[s] == MonsterPool.AGGRESSIVE);
+                m.state[s] = MonsterPool.IDLE;
             }
         }
 
-        if (target != null && !m.isAggravated) target = null;
+        if (target != null && !m.aggravated[s]) target = null;
 
         if (target != null) {
-            double dist = getDistance(m.x, m.y, target.getX(), target.getY());
+            double dist = getDistance(m.x[s], m.y[s], target.getX(), target.getY());
 
-            if (m.state == Monster.State.JUMP) {
-                if (now > m.stateTimer) {
-                    if (dist < 50.0) {
-                        target.damage(2);
-                        target.triggerKnockback(200);
-                    }
-                    m.state = Monster.State.IDLE;
-                    m.stateTimer = now + 800;
+            if (m.state[s] == MonsterPool.JUMP) {
+                if (now > m.stateTimer[s]) {
+                    if (dist < 50.0) fx.hit(target, 2, 200);
+                    m.state[s] = MonsterPool.IDLE;
+                    m.stateTimer[s] = now + 800;
                 } else {
-                    moveMonsterSmart(m, Math.atan2(target.getY() - m.y, target.getX() - m.x), 5.0);
+                    moveMonsterSmart(s, chaseAngle(s, target), 5.0 * m.simStep[s], fx);
                 }
                 return;
             }
 
-            if (m.state == Monster.State.DASH) {
-                if (now > m.stateTimer) {
-                    m.state = Monster.State.CHASE;
+            if (m.state[s] == MonsterPool.DASH) {
+                if (now > m.stateTimer[s]) {
+                    m.state[s] = MonsterPool.CHASE;
                 } else {
                     if (dist < 40.0) {
-                        target.damage(3);
-                        target.triggerKnockback(600);
-                        m.state = Monster.State.CHASE;
+                        fx.hit(target, 3, 600);
+                        m.state[s] = MonsterPool.CHASE;
                     } else {
-                        moveMonsterSmart(m, Math.atan2(target.getY() - m.y, target.getX() - m.x), 14.0);
+                        moveMonsterSmart(s, chaseAngle(s, target), 14.0 * m.simStep[s], fx);
                     }
                     return;
                 }
             }
 
-            if (m.state == Monster.State.EVADE) {
-                if (now > m.stateTimer) {
-                    m.state = Monster.State.CHASE;
+            if (m.state[s] == MonsterPool.EVADE) {
+                if (now > m.stateTimer[s]) {
+                    m.state[s] = MonsterPool.CHASE;
                 } else {
-                    moveMonsterSmart(m, Math.atan2(m.y - target.getY(), m.x - target.getX()), 6.0);
+                    moveMonsterSmart(s, Math.atan2(m.y[s] - target.getY(), m.x[s] - target.getX()), 6.0 * m.simStep[s], fx);
                 }
                 return;
             }
 
-            if (target.isAttacking() && dist < 120 && now - m.lastEvadeTime > EVADE_COOLDOWN) {
+            if (target.isAttacking() && dist < 120 && now - m.lastEvade[s] > EVADE_COOLDOWN) {
                 if (ThreadLocalRandom.current().nextDouble() < 0.60) {
-                    m.state = Monster.State.EVADE;
-                    m.lastEvadeTime = now;
-                    m.stateTimer = now + 400;
+                    m.state[s] = MonsterPool.EVADE;
+                    m.lastEvade[s] = now;
+                    m.stateTimer[s] = now + 400;
                     return;
                 }
             }
 
-            if (dist < 180 && now - m.lastJumpTime > JUMP_COOLDOWN) {
+            if (dist < 180 && now - m.lastJump[s] > JUMP_COOLDOWN) {
                 if (ThreadLocalRandom.current().nextDouble() < 0.05) {
-                    m.state = Monster.State.JUMP;
-                    m.lastJumpTime = now;
-                    m.stateTimer = now + 1200;
+                    m.state[s] = MonsterPool.JUMP;
+                    m.lastJump[s] = now;
+                    m.stateTimer[s] = now + 1200;
                     return;
                 }
             }
 
-            if (dist > 150 && dist < 400 && now - m.lastDashTime > DASH_COOLDOWN) {
+            if (dist > 150 && dist < 400 && now - m.lastDash[s] > DASH_COOLDOWN) {
                 if (ThreadLocalRandom.current().nextDouble() < 0.10) {
-                    m.state = Monster.State.DASH;
-                    m.lastDashTime = now;
-                    m.stateTimer = now + 600;
+                    m.state[s] = MonsterPool.DASH;
+                    m.lastDash[s] = now;
+                    m.stateTimer[s] = now + 600;
                     return;
                 }
             }
 
             if (dist > CHASE_STOP_DIST) {
-                m.targetPlayerId = null;
-                m.isAggravated = (m.personality == Monster.Personality.AGGRESSIVE);
-                m.state = Monster.State.IDLE;
+                m.target[s] = null;
+                m.aggravated[s] = (m.personality[s] == MonsterPool.AGGRESSIVE);
+                m.state[s] = MonsterPool.IDLE;
             }
             else if (dist <= ATTACK_RANGE) {
-                if (now - m.lastAttackTime > ATTACK_COOLDOWN) {
-                    m.state = Monster.State.ATTACK;
-                    m.lastAttackTime = now;
-                    if (m.isAggravated) target.damage(1);
+                if (now - m.lastAttack[s] > ATTACK_COOLDOWN) {
+                    m.state[s] = MonsterPool.ATTACK;
+                    m.lastAttack[s] = now;
+                    if (m.aggravated[s]) fx.hit(target, 1, 0);
                 }
-                m.dx = 0; m.dy = 0;
+                m.dx[s] = 0; m.dy[s] = 0;
             }
             else {
-                m.state = Monster.State.CHASE;
-                moveMonsterSmart(m, Math.atan2(target.getY() - m.y, target.getX() - m.x), m.speed);
+                m.state[s] = MonsterPool.CHASE;
+                moveMonsterSmart(s, chaseAngle(s, target), m.speed[s] * m.simStep[s], fx);
             }
         }
         else {
-            handlePassiveBehavior(m, now);
+            handlePassiveBehavior(s, now, fx);
         }
     }
 
-    private void moveMonsterSmart(Monster m, double angle, double moveSpeed) {
-        double newX = m.x + Math.cos(angle) * moveSpeed;
-        double newY = m.y + Math.sin(angle) * moveSpeed;
-        if (!isBlocked(newX, newY)) {
-            m.x = (int)newX;
-            m.y = (int)newY;
-        } else {
+    // Only the end point of a step is probed, so a step of half a tile or more could cut a
+    // diagonal corner. Mid-tier monsters move simStep ticks' worth at once: split that into
+    // steps below the limit, each probed like a near-tier tick, and stop at the first that is stuck.
+    private static final double MAX_PROBE_STEP = TILE_SIZE / 2.0 - 1;
+
+    private static int probeSteps(double distance) {
+        return Math.max(1, (int) Math.ceil(distance / MAX_PROBE_STEP));
+    }
+
+    private void moveMonsterSmart(int s, double angle, double moveSpeed, MonsterAiExecutor.Effects fx) {
+        MonsterPool m = monsters;
+        int steps = probeSteps(moveSpeed);
+        double step = moveSpeed / steps;
+        int x = m.x[s], y = m.y[s];
+        for (int k = 0; k < steps; k++) {
+            double newX = x + Math.cos(angle) * step;
+            double newY = y + Math.sin(angle) * step;
+            if (!isBlocked(newX, newY)) {
+                x = (int)newX; y = (int)newY;
+                continue;
+            }
+            boolean moved = false;
             for (double offset : new double[]{-0.6, 0.6}) {
                 double tryAngle = angle + offset;
-                double tryX = m.x + Math.cos(tryAngle) * moveSpeed;
-                double tryY = m.y + Math.sin(tryAngle) * moveSpeed;
+                double tryX = x + Math.cos(tryAngle) * step;
+                double tryY = y + Math.sin(tryAngle) * step;
                 if (!isBlocked(tryX, tryY)) {
-                    m.x = (int)tryX;
-                    m.y = (int)tryY;
+                    x = (int)tryX; y = (int)tryY;
+                    moved = true;
                     break;
                 }
             }
+            if (!moved) break;
         }
+        if (x != m.x[s] || y != m.y[s]) fx.move(s, x, y);
     }
 
-    private void handlePassiveBehavior(Monster m, long now) {
-        if (now > m.stateTimer) {
-            if (m.state == Monster.State.WANDER) {
-                m.state = Monster.State.IDLE;
-                m.stateTimer = now + ThreadLocalRandom.current().nextLong(2000, 4000);
+    private void handlePassiveBehavior(int s, long now, MonsterAiExecutor.Effects fx) {
+        MonsterPool m = monsters;
+        if (now > m.stateTimer[s]) {
+            if (m.state[s] == MonsterPool.WANDER) {
+                m.state[s] = MonsterPool.IDLE;
+                m.stateTimer[s] = now + ThreadLocalRandom.current().nextLong(2000, 4000);
             } else {
-                m.state = Monster.State.WANDER;
-                m.stateTimer = now + ThreadLocalRandom.current().nextLong(1000, 3000);
+                m.state[s] = MonsterPool.WANDER;
+                m.stateTimer[s] = now + ThreadLocalRandom.current().nextLong(1000, 3000);
                 double wanderAngle = ThreadLocalRandom.current().nextDouble(0, Math.PI * 2);
-                m.dx = Math.cos(wanderAngle) * (m.speed * 0.5);
-                m.dy = Math.sin(wanderAngle) * (m.speed * 0.5);
-            }
-        }
-        if (m.state == Monster.State.WANDER) {
-            double nextX = m.x + m.dx;
-            double nextY = m.y + m.dy;
-            if (!isBlocked(nextX, nextY)) {
-                m.x = (int)nextX;
-                m.y = (int)nextY;
-            } else {
-                m.state = Monster.State.IDLE;
-                m.stateTimer = now + 1000;
+                m.dx[s] = Math.cos(wanderAngle) * (m.speed[s] * 0.5);
+                m.dy[s] = Math.sin(wanderAngle) * (m.speed[s] * 0.5);
+            }
+        }
+        if (m.state[s] == MonsterPool.WANDER) {
+            int steps = probeSteps(Math.hypot(m.dx[s], m.dy[s]) * m.simStep[s]);
+            double stepX = m.dx[s] * m.simStep[s] / steps, stepY = m.dy[s] * m.simStep[s] / steps;
+            int x = m.x[s], y = m.y[s];
+            for (int k = 0; k < steps; k++) {
+                double nextX = x + stepX;
+                double nextY = y + stepY;
+                if (isBlocked(nextX, nextY)) {
+                    m.state[s] = MonsterPool.IDLE;
+                    m.stateTimer[s] = now + 1000;
+                    break;
+                }
+                x = (int)nextX; y = (int)nextY;
             }
+            if (x != m.x[s] || y != m.y[s]) fx.move(s, x, y);
         }
     }
 
@@ -338,35 +658,24 @@ public class GameService {
         double hitCenterX = (targetX * TILE_SIZE) + (TILE_SIZE / 2.0);
         double hitCenterY = (targetY * TILE_SIZE) + (TILE_SIZE / 2.0);
 
-        Monster closestMonster = null;
-        double minMonDist = 64.0;
-        for (Monster m : activeMonsters.values()) {
-            double d = getDistance(hitCenterX, hitCenterY, m.x, m.y);
-            if (d < minMonDist) {
-                minMonDist = d;
-                closestMonster = m;
-            }
-        }
+        int closestMonster = monsters.nearest(hitCenterX, hitCenterY, 64.0, MonsterPool.NONE);
 
-        if (closestMonster != null) {
-            handleMonsterHit(closestMonster, sessionId, playerX, playerY, damage);
-            return closestMonster;
+        if (closestMonster != MonsterPool.NONE) {
+            return handleMonsterHit(closestMonster, sessionId, playerX, playerY, damage);
         }
 
-        String directKey = targetX + "_" + targetY;
-        WorldObject targetObj = activeObjects.get(directKey);
+        WorldObject targetObj = activeObjects.get(targetX, targetY);
 
         if (targetObj == null) {
             double minDst = Double.MAX_VALUE;
             for (int dx = -1; dx <= 1; dx++) {
                 for (int dy = -1; dy <= 1; dy++) {
-                    String k = (targetX + dx) + "_" + (targetY + dy);
-                    WorldObject candidate = activeObjects.get(k);
+                    WorldObject candidate = activeObjects.get(targetX + dx, targetY + dy);
                     if (candidate != null) {
                         double ox = candidate.x * TILE_SIZE + (TILE_SIZE/2.0);
                         double oy = candidate.y * TILE_SIZE + (TILE_SIZE/2.0);
                         double d = getDistance(hitCenterX, hitCenterY, ox, oy);
-                        if (d < 96 && d < minDst) { minDst = d; targetObj = candidate; directKey = k; }
+                        if (d < 96 && d < minDst) { minDst = d; targetObj = candidate; }
                     }
                 }
             }
@@ -375,43 +684,46 @@ public class GameService {
         if (targetObj != null) {
             targetObj.hp -= damage;
             if (targetObj.hp <= 0) {
-                destroyedObjectIds.add(directKey);
-                activeObjects.remove(directKey);
+                destroyedObjectIds.add(targetObj.id);
+                removeObject(targetObj);
+                mutationLog.removed(targetObj.x, targetObj.y);
+            } else {
+                mutationLog.objectHp(targetObj.x, targetObj.y, targetObj.hp);
+                persistenceService.markRegionDirty(targetObj.x, targetObj.y);
             }
         }
         return targetObj;
     }
 
-    private void handleMonsterHit(Monster m, String sessionId, double attackerX, double attackerY, int damage) {
-        m.isAggravated = true;
-        m.targetPlayerId = sessionId;
-        m.hp -= damage;
-        m.state = Monster.State.HURT;
-        m.stateTimer = System.currentTimeMillis() + 400;
-
-        double angle = Math.atan2(m.y - attackerY, m.x - attackerX);
-        double knX = m.x + Math.cos(angle) * 40.0;
-        double knY = m.y + Math.sin(angle) * 40.0;
-
-        for (Monster other : activeMonsters.values()) {
-            if (other == m) continue;
-            double dist = getDistance(knX, knY, other.x, other.y);
-            if (dist < 40) {
-                other.hp -= 1;
-                other.state = Monster.State.HURT;
-                other.stateTimer = System.currentTimeMillis() + 200;
-                double bumpAngle = Math.atan2(other.y - m.y, other.x - m.x);
-                other.x += Math.cos(bumpAngle) * 20;
-                other.y += Math.sin(bumpAngle) * 20;
-                knX = m.x + Math.cos(angle) * 10.0;
-                knY = m.y + Math.sin(angle) * 10.0;
-                break;
-            }
-        }
-        if(!isBlocked(knX, knY)) { m.x = (int)knX; m.y = (int)knY; }
-        if (m.hp <= 0) {
-            activeMonsters.remove(m.id);
-        }
+    // Returns the monster as it is after the hit; a killed monster's slot is freed
+    private Monster handleMonsterHit(int handle, String sessionId, double attackerX, double attackerY, int damage) {
+        MonsterPool m = monsters;
+        int s = MonsterPool.slot(handle);
+        m.aggravated[s] = true;
+        m.target[s] = sessionId;
+        m.hp[s] -= damage;
+        m.state[s] = MonsterPool.HURT;
+        m.stateTimer[s] = System.currentTimeMillis() + 400;
+
+        double angle = Math.atan2(m.y[s] - attackerY, m.x[s] - attackerX);
+        double knX = m.x[s] + Math.cos(angle) * 40.0;
+        double knY = m.y[s] + Math.sin(angle) * 40.0;
+
+        int other = m.nearest(knX, knY, 40.0, handle);
+        if (other != MonsterPool.NONE) {
+            int o = MonsterPool.slot(other);
+            m.hp[o] -= 1;
+            m.state[o] = MonsterPool.HURT;
+            m.stateTimer[o] = System.currentTimeMillis() + 200;
+            double bumpAngle = Math.atan2(m.y[o] - m.y[s], m.x[o] - m.x[s]);
+            m.move(o, (int) (m.x[o] + Math.cos(bumpAngle) * 20), (int) (m.y[o] + Math.sin(bumpAngle) * 20));
+            knX = m.x[s] + Math.cos(angle) * 10.0;
+            knY = m.y[s] + Math.sin(angle) * 10.0;
+        }
+        if(!isBlocked(knX, knY)) m.move(s, (int)knX, (int)knY);
+        Monster hit = m.view(handle);
+        if (m.hp[s] <= 0) m.release(handle);
+        return hit;
     }
 
     public PlayerState processMove(String sessionId, double requestedX, double requestedY, long seqId) {
@@ -427,6 +739,9 @@ public class GameService {
             else if (isValidPosition(player.getX(), requestedY) && !isPlayerBlocked(player.getX(), requestedY)) {
                 player.setY(requestedY);
             }
+            playerGrid.update(player, player.getX(), player.getY());
+            mutationLog.position(player.getPlayerId(), player.getX(), player.getY());
+            persistenceService.markPlayerDirty(player.getPlayerId());
             player.setLastProcessedSeqId(seqId);
         }
         return player;
@@ -450,9 +765,7 @@ public class GameService {
     private boolean isBlocked(double x, double y) {
         int tileX = (int) Math.floor(x / 64.0);
         int tileY = (int) Math.floor(y / 64.0);
-        if (getTerrainAt(tileX, tileY) == -1) return true;
-        String key = tileX + "_" + tileY;
-        return activeObjects.containsKey(key);
+        return collisionMap.isBlocked(tileX, tileY);
     }
 
     private double getDistance(double x1, double y1, double x2, double y2) {
@@ -460,14 +773,24 @@ public class GameService {
     }
 
     public void spawnMonster(String type, int x, int y) {
-        if (activeMonsters.size() >= MAX_MONSTERS) return;
-        String id = "monster_" + System.nanoTime();
-        Monster m = new Monster(type, x, y);
-        m.id = id; activeMonsters.put(id, m);
+        if (monsters.size() >= maxMonsters) return;
+        monsters.spawn(type, x, y);
+    }
+
+    /** Writes the handles of the monsters inside the given world-space box into {@code out}. */
+    public int findMonstersInRect(double minX, double minY, double maxX, double maxY, IntList out) {
+        return monsters.queryRect(minX, minY, maxX, maxY, out);
     }
 
-    public Map<String, Monster> getActiveMonsters() { return activeMonsters; }
-    public Map<String, WorldObject> getActiveObjects() { return activeObjects; }
+    /** Writes the online players within {@code radius} px of (x, y) into {@code out}. */
+    public int findPlayersInRadius(double x, double y, double radius, Collection<? super PlayerState> out) {
+        return playerGrid.queryRadius(x, y, radius, out);
+    }
+
+    /** Tick thread only, see {@link MonsterPool}. */
+    public MonsterPool getMonsterPool() { return monsters; }
+    public WorldObjectIndex getActiveObjects() { return activeObjects; }
+    public WorldObject getObjectAt(int x, int y) { return activeObjects.get(x, y); }
 
     public PlayerState onPlayerConnect(String sessionId) {
         PlayerState state;
@@ -476,31 +799,36 @@ public class GameService {
             state = offlinePlayers.poll();
             String oldId = state.getPlayerId();
             state.setPlayerId(sessionId);
-            for (WorldObject obj : activeObjects.values()) {
+            activeObjects.forEach(obj -> {
                 if (obj.ownerId != null && obj.ownerId.equals(oldId)) {
                     obj.ownerId = sessionId;
+                    persistenceService.markRegionDirty(obj.x, obj.y);
                 }
-            }
+            });
+            mutationLog.playerRenamed(oldId, sessionId);
             System.out.println(" [GameService] Restored player " + oldId + " -> " + sessionId);
         }
         else {
             state = new PlayerState(sessionId, 0, 0);
-            boolean ownsTable = activeObjects.values().stream()
-                    .anyMatch(o -> "Crafting Table".equals(o.type) && sessionId.equals(o.ownerId));
+            mutationLog.playerJoined(state);
+            boolean ownsTable = activeObjects.anyMatch(o -> "Crafting Table".equals(o.type) && sessionId.equals(o.ownerId));
 
             if (!ownsTable) {
                 // [UPDATED] Use ItemRegistry
                 Item table = itemRegistry.getItem("Crafting Table");
-                if (table != null) state.addItem(table, 1);
+                if (table != null) giveItem(state, table, 1);
             }
         }
         playerStates.put(sessionId, state);
+        persistenceService.markPlayerDirty(sessionId);
+        playerGrid.insert(state, state.getX(), state.getY());
         return state;
     }
 
     public void onPlayerDisconnect(String sessionId) {
         PlayerState state = playerStates.remove(sessionId);
         if (state != null) {
+            playerGrid.remove(state);
             offlinePlayers.add(state);
             System.out.println(" [GameService] Player " + sessionId + " stored in offline queue.");
         }
@@ -513,7 +841,7 @@ public class GameService {
         if (player != null) {
             Item item = itemRegistry.getItem(itemType);
             if (item != null) {
-                player.addItem(item, 1);
+                giveItem(player, item, 1);
             }
         }
         return player;
@@ -522,7 +850,7 @@ public class GameService {
     public PlayerState processRemoveItem(String sessionId, String itemType, int amount) {
         PlayerState player = playerStates.get(sessionId);
         if (player != null) {
-            player.removeItem(itemType, amount);
+            takeItem(player, itemType, amount);
         }
         return player;
     }
@@ -530,7 +858,7 @@ public class GameService {
     public DropResult dropItem(String sessionId, String itemType) {
         PlayerState player = playerStates.get(sessionId);
         if (player != null && player.hasItem(itemType, 1)) {
-            player.removeItem(itemType, 1);
+            takeItem(player, itemType, 1);
             return new DropResult(itemType, 1);
         }
         return null;
@@ -545,12 +873,12 @@ public class GameService {
             if (player.hasItem("Wood", 3) && player.hasItem("Stone", 2) && player.hasItem("Rope", 1)) {
                 if (player.hasItem("Pickaxe", 1)) return false; // Prevent duplicates for tools
 
-                player.removeItem("Wood", 3);
-                player.removeItem("Stone", 2);
-                player.removeItem("Rope", 1);
+                takeItem(player, "Wood", 3);
+                takeItem(player, "Stone", 2);
+                takeItem(player, "Rope", 1);
 
                 Item item = itemRegistry.getItem("Pickaxe");
-                player.addItem(item, 1);
+                giveItem(player, item, 1);
                 return true;
             }
         }
@@ -562,13 +890,13 @@ public class GameService {
                 if (player.hasItem("Hoe", 1)) return false;
 
                 // Deduct Ingredients
-                player.removeItem("Wood", 2);
-                player.removeItem("Stone", 2);
-                player.removeItem("Rope", 1);
+                takeItem(player, "Wood", 2);
+                takeItem(player, "Stone", 2);
+                takeItem(player, "Rope", 1);
 
                 // Give Hoe
                 Item item = itemRegistry.getItem("Hoe");
-                player.addItem(item, 1);
+                giveItem(player, item, 1);
                 return true;
             }
         }
@@ -577,11 +905,11 @@ public class GameService {
             if (player.hasItem("Wood", 10) && player.hasItem("Stone", 5)) {
                 if (player.hasItem("Bonfire", 10)) return false;
 
-                player.removeItem("Wood", 10);
-                player.removeItem("Stone", 5);
+                takeItem(player, "Wood", 10);
+                takeItem(player, "Stone", 5);
 
                 Item item = itemRegistry.getItem("Bonfire");
-                player.addItem(item, 1);
+                giveItem(player, item, 1);
                 return true;
             }
         }
@@ -589,10 +917,10 @@ public class GameService {
             if (player.hasItem("Wood", 2)) {
                 if (player.hasItem("Fence", 100)) return false;
 
-                player.removeItem("Wood", 2);
+                takeItem(player, "Wood", 2);
 
                 Item item = itemRegistry.getItem("Fence");
-                player.addItem(item, 1);
+                giveItem(player, item, 1);
                 return true;
             }
         }
@@ -604,12 +932,10 @@ public class GameService {
         PlayerState player = playerStates.get(sessionId);
         if (player == null || !player.hasItem(type, 1)) return false;
         if (getTerrainAt(x, y) == -1) return false;
-        String objKey = x + "_" + y;
-        if (activeObjects.containsKey(objKey)) return false;
+        if (collisionMap.isOccupied(x, y)) return false;
 
         if (type.equals("Crafting Table")) {
-            boolean alreadyOwnsTable = activeObjects.values().stream()
-                    .anyMatch(o -> "Crafting Table".equals(o.type) && sessionId.equals(o.ownerId));
+            boolean alreadyOwnsTable = activeObjects.anyMatch(o -> "Crafting Table".equals(o.type) && sessionId.equals(o.ownerId));
 
             if (alreadyOwnsTable) {
                 return false;
@@ -622,17 +948,19 @@ public class GameService {
         if (type.equals("Crafting Table") || type.equals("Bonfire")) obj.hp = 3;
         if (type.equals("Fence")) obj.hp = 2;
 
-        activeObjects.put(objKey, obj);
-        player.removeItem(type, 1);
+        putObject(obj);
+        mutationLog.placed(obj);
+        takeItem(player, type, 1);
         return true;
     }
 
     public boolean processPickupObject(String sessionId, int x, int y) {
-        String objKey = x + "_" + y;
-        WorldObject obj = activeObjects.get(objKey);
+        WorldObject obj = activeObjects.get(x, y);
         if (obj != null) {
             if (obj.type.equals("Crafting Table") || obj.type.equals("Bonfire") || obj.type.equals("Fence")) {
-                activeObjects.remove(objKey); destroyedObjectIds.add(objKey); return true;
+                removeObject(obj); destroyedObjectIds.add(obj.id);
+                mutationLog.removed(x, y);
+                return true;
             }
         }
         return false;
@@ -0,0 +1,197 @@
+package com.archemidia.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The single authoritative simulation clock.
+ * One dedicated thread runs fixed-length ticks; every tick walks the phases in order
+ * (INPUT, AI, PHYSICS, SNAPSHOT, BROADCAST). SNAPSHOT and BROADCAST only run on
+ * network ticks, which happen every {@code simulation-hz / network-hz} ticks.
+ * When a tick overruns, missed ticks are either replayed back-to-back (CATCH_UP, bounded
+ * by {@code max-catch-up-ticks}) or dropped (SKIP).
+ */
+@Service
+public class GameTickLoop implements SmartLifecycle {
+
+    public enum Phase { INPUT, AI, PHYSICS, SNAPSHOT, BROADCAST }
+
+    public enum OverrunPolicy { CATCH_UP, SKIP }
+
+    @FunctionalInterface
+    public interface TickTask {
+        void run(long tick);
+    }
+
+    /** Timing snapshot exposed for tuning. All durations are in nanoseconds. */
+    public record TickTimings(long tick,
+                              int simulationHz,
+                              int networkHz,
+                              long budgetNanos,
+                              Map<Phase, Long> lastPhaseNanos,
+                              Map<Phase, Long> avgPhaseNanos,
+                              long lastTickNanos,
+                              long maxTickNanos,
+                              long overruns,
+                              long skippedTicks) {}
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final double AVG_WEIGHT = 0.05;
+
+    private final int simulationHz;
+    private final int networkHz;
+    private final int networkEvery;
+    private final long periodNanos;
+    private final OverrunPolicy overrunPolicy;
+    private final int maxCatchUpTicks;
+
+    private final Map<Phase, List<TickTask>> tasks = new EnumMap<>(Phase.class);
+
+    // Written by the tick thread only, read by stats callers
+    private volatile long tick = 0;
+    private final long[] lastPhaseNanos = new long[PHASES.length];
+    private final double[] avgPhaseNanos = new double[PHASES.length];
+    private volatile long lastTickNanos = 0;
+    private volatile long maxTickNanos = 0;
+    // Times the loop fell at least one full period behind; the catch-up ticks that follow count once
+    private volatile long overruns = 0;
+    private volatile long skippedTicks = 0;
+
+    private volatile boolean running = false;
+    private Thread thread;
+
+    public GameTickLoop(@Value("${game.tick.simulation-hz:20}") int simulationHz,
+                        @Value("${game.tick.network-hz:20}") int networkHz,
+                        @Value("${game.tick.overrun-policy:CATCH_UP}") OverrunPolicy overrunPolicy,
+                        @Value("${game.tick.max-catch-up-ticks:3}") int maxCatchUpTicks) {
+        if (simulationHz <= 0 || networkHz <= 0) throw new IllegalArgumentException("Tick rates must be positive");
+        this.simulationHz = simulationHz;
+        this.networkHz = Math.min(networkHz, simulationHz);
+        this.networkEvery = Math.max(1, Math.round((float) simulationHz / this.networkHz));
+        this.periodNanos = 1_000_000_000L / simulationHz;
+        this.overrunPolicy = overrunPolicy;
+        this.maxCatchUpTicks = Math.max(0, maxCatchUpTicks);
+        for (Phase p : PHASES) tasks.put(p, new CopyOnWriteArrayList<>());
+    }
+
+    /** Adds a task to the given phase. Tasks of one phase run in registration order. */
+    public void register(Phase phase, TickTask task) {
+        tasks.get(phase).add(task);
+    }
+
+    public long getTick() { return tick; }
+    public int getSimulationHz() { return simulationHz; }
+    public double getTickSeconds() { return 1.0 / simulationHz; }
+    public long getTickMillis() { return periodNanos / 1_000_000L; }
+
+    public boolean isTickThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    // --- Lifecycle ---
+
+    @Override
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this::runLoop, "game-tick");
+        thread.start();
+        System.out.println(" [TickLoop] Started at " + simulationHz + " Hz (network " + networkHz + " Hz, " + overrunPolicy + ").");
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() { return running; }
+
+    // --- Loop ---
+
+    private void runLoop() {
+        long next = System.nanoTime();
+        boolean lagging = false;
+        while (running) {
+            long behind = System.nanoTime() - next;
+            if (behind < 0) {
+                lagging = false;
+                LockSupport.parkNanos(-behind);
+                continue;
+            }
+
+            long missed = behind / periodNanos;
+            if (missed > 0) {
+                if (!lagging) overruns++;
+                long allowed = overrunPolicy == OverrunPolicy.CATCH_UP ? Math.min(missed, maxCatchUpTicks) : 0;
+                long dropped = missed - allowed;
+                if (dropped > 0) {
+                    skippedTicks += dropped;
+                    next += dropped * periodNanos;
+                }
+            }
+
+            lagging = missed > 0;
+            runTick();
+            next += periodNanos;
+        }
+    }
+
+    private void runTick() {
+        long t = tick + 1;
+        boolean networkTick = t % networkEvery == 0;
+        long tickStart = System.nanoTime();
+
+        for (Phase phase : PHASES) {
+            if (!networkTick && (phase == Phase.SNAPSHOT || phase == Phase.BROADCAST)) {
+                lastPhaseNanos[phase.ordinal()] = 0;
+                continue;
+            }
+            long start = System.nanoTime();
+            for (TickTask task : tasks.get(phase)) {
+                try {
+                    task.run(t);
+                } catch (RuntimeException e) {
+                    System.err.println(" [TickLoop] " + phase + " task failed on tick " + t + ": " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+            long took = System.nanoTime() - start;
+            int i = phase.ordinal();
+            lastPhaseNanos[i] = took;
+            avgPhaseNanos[i] += (took - avgPhaseNanos[i]) * AVG_WEIGHT;
+        }
+
+        long total = System.nanoTime() - tickStart;
+        lastTickNanos = total;
+        if (total > maxTickNanos) maxTickNanos = total;
+        tick = t;
+    }
+
+    public TickTimings getTimings() {
+        Map<Phase, Long> last = new EnumMap<>(Phase.class);
+        Map<Phase, Long> avg = new EnumMap<>(Phase.class);
+        for (Phase p : PHASES) {
+            last.put(p, lastPhaseNanos[p.ordinal()]);
+            avg.put(p, (long) avgPhaseNanos[p.ordinal()]);
+        }
+        return new TickTimings(tick, simulationHz, networkHz, periodNanos, last, avg,
+                lastTickNanos, maxTickNanos, overruns, skippedTicks);
+    }
+}
@@ -0,0 +1,139 @@
+package com.archemidia.service;
+
+import com.archemidia.model.MonsterPool;
+import com.archemidia.model.PlayerState;
+import com.archemidia.util.IntList;
+import com.archemidia.util.TileKey;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs one AI step per monster, region by region, on a ForkJoin pool.
+ * <p>
+ * A step may only write its own monster's pool columns. Anything else (re-filing the monster
+ * in the pool's grid, hurting or knocking back a player) goes into the batch's {@link Effects} and
+ * is applied by the caller on the tick thread afterwards, batch by batch in region order, so
+ * the outcome does not depend on which thread finished first. Small populations run inline.
+ */
+public class MonsterAiExecutor {
+
+    @FunctionalInterface
+    public interface Step {
+        void update(int handle, Effects fx);
+    }
+
+    public record PlayerHit(PlayerState target, int damage, long knockbackMs) {}
+
+    /** What one region's batch did outside its own monsters, in the order it happened. */
+    public static final class Effects {
+        private final MonsterPool pool;
+        private final IntList moved = new IntList();
+        private final List<PlayerHit> hits = new ArrayList<>();
+
+        Effects(MonsterPool pool) {
+            this.pool = pool;
+        }
+
+        /** Moves the monster right away; its grid cell is updated at merge time. */
+        public void move(int slot, int x, int y) {
+            pool.x[slot] = x;
+            pool.y[slot] = y;
+            moved.add(slot);
+        }
+
+        public void hit(PlayerState target, int damage, long knockbackMs) {
+            hits.add(new PlayerHit(target, damage, knockbackMs));
+        }
+
+        /** Slots whose position changed. */
+        public IntList getMoved() { return moved; }
+        public List<PlayerHit> getHits() { return hits; }
+    }
+
+    private final int regionPx;
+    private final int parallelThreshold;
+    private final ForkJoinPool workers;
+
+    public MonsterAiExecutor(int regionPx, int threads, int parallelThreshold) {
+        this.regionPx = regionPx;
+        this.parallelThreshold = parallelThreshold;
+        int parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger n = new AtomicInteger();
+        this.workers = new ForkJoinPool(parallelism, p -> {
+            var t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("monster-ai-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, null, false);
+    }
+
+    public int getParallelism() { return workers.getParallelism(); }
+
+    /**
+     * Runs {@code step} for every handle and returns each region's effects, ordered by region and,
+     * inside a region, by handle. Blocks until all regions are done.
+     */
+    public List<Effects> run(MonsterPool pool, IntList handles, Step step) {
+        Map<Long, IntList> byRegion = new TreeMap<>();
+        for (int i = 0; i < handles.size(); i++) {
+            int h = handles.get(i), s = MonsterPool.slot(h);
+            long region = TileKey.pack(Math.floorDiv(pool.x[s], regionPx), Math.floorDiv(pool.y[s], regionPx));
+            byRegion.computeIfAbsent(region, k -> new IntList()).add(h);
+        }
+
+        List<Batch> batches = new ArrayList<>(byRegion.size());
+        for (IntList regionHandles : byRegion.values()) {
+            regionHandles.sort();
+            batches.add(new Batch(regionHandles, step, new Effects(pool)));
+        }
+
+        if (handles.size() < parallelThreshold || batches.size() < 2) {
+            for (Batch b : batches) b.compute();
+        } else {
+            workers.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() { ForkJoinTask.invokeAll(batches); }
+            });
+        }
+
+        List<Effects> out = new ArrayList<>(batches.size());
+        for (Batch b : batches) out.add(b.fx);
+        return out;
+    }
+
+    public void shutdown() {
+        workers.shutdown();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Batch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final IntList handles;
+        private final Step step;
+        private final Effects fx;
+
+        Batch(IntList handles, Step step, Effects fx) {
+            this.handles = handles;
+            this.step = step;
+            this.fx = fx;
+        }
+
+        @Override
+        protected void compute() {
+            for (int i = 0; i < handles.size(); i++) step.update(handles.get(i), fx);
+        }
+    }
+}
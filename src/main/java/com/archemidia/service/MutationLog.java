@@ -0,0 +1,479 @@
+package com.archemidia.service;
+
+import com.archemidia.model.PlayerState;
+import com.archemidia.model.WorldObject;
+import com.archemidia.model.WorldObjectIndex;
+import com.archemidia.model.item.Item;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log of world mutations, the incremental half of persistence.
+ * <ul>
+ *   <li>The tick thread records mutations into an in-memory batch; position and player HP
+ *       updates are coalesced to the latest one per player.</li>
+ *   <li>A single writer thread appends the batch to the current segment file every
+ *       {@code flushIntervalMs}, optionally followed by an fsync. A crash loses at most one batch.</li>
+ *   <li>A checkpoint {@link #rotate()}s to a new segment; once the snapshot covering the old
+ *       segments is on disk they are deleted (see {@link PersistenceService}).</li>
+ * </ul>
+ * Records are framed as [length][crc32][payload], so a torn tail write is detected and dropped on replay.
+ */
+public class MutationLog {
+    private static final String SEGMENT_PREFIX = "world_data.wal.";
+
+    // Record opcodes, persisted: only ever append
+    private static final byte PLACE = 1;
+    private static final byte REMOVE = 2;
+    private static final byte OBJECT_HP = 3;
+    private static final byte INV_ADD = 4;
+    private static final byte INV_REMOVE = 5;
+    private static final byte POSITION = 6;
+    private static final byte PLAYER_JOIN = 7;
+    private static final byte PLAYER_RENAME = 8;
+    private static final byte PLAYER_HP = 9;
+
+    private final File dir;
+    private final boolean fsync;
+    private final ScheduledExecutorService writer;
+
+    // Guarded by this: the batch being filled by the tick thread
+    private final ByteArrayOutputStream batch = new ByteArrayOutputStream(8192);
+    private final Map<String, double[]> pendingPositions = new LinkedHashMap<>();
+    private final Map<String, Integer> pendingHp = new LinkedHashMap<>();
+    private long segment;
+    private long bytesInSegment;
+
+    // Writer thread only
+    private FileChannel channel;
+    private long channelSegment = -1;
+
+    private final ByteArrayOutputStream scratch = new ByteArrayOutputStream(128);
+    private final DataOutputStream record = new DataOutputStream(scratch);
+    private final CRC32 crc = new CRC32();
+
+    public MutationLog(File dir, boolean fsync, long flushIntervalMs) {
+        this.dir = dir;
+        this.fsync = fsync;
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "wal-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        writer.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    // --- Recording (tick thread) ---
+
+    public synchronized void placed(WorldObject o) {
+        begin(PLACE);
+        writeString(o.id);
+        writeString(o.type);
+        writeInt(o.x);
+        writeInt(o.y);
+        writeInt(o.hp);
+        writeInt(o.maxHp);
+        writeString(o.ownerId);
+        end();
+    }
+
+    public synchronized void removed(int x, int y) {
+        begin(REMOVE);
+        writeInt(x);
+        writeInt(y);
+        end();
+    }
+
+    public synchronized void objectHp(int x, int y, int hp) {
+        begin(OBJECT_HP);
+        writeInt(x);
+        writeInt(y);
+        writeInt(hp);
+        end();
+    }
+
+    public synchronized void itemAdded(String playerId, String itemId, int amount) {
+        begin(INV_ADD);
+        writeString(playerId);
+        writeString(itemId);
+        writeInt(amount);
+        end();
+    }
+
+    public synchronized void itemRemoved(String playerId, String itemId, int amount) {
+        begin(INV_REMOVE);
+        writeString(playerId);
+        writeString(itemId);
+        writeInt(amount);
+        end();
+    }
+
+    /** Coalesced: only the last position per player within a batch is written. */
+    public synchronized void position(String playerId, double x, double y) {
+        double[] pos = pendingPositions.get(playerId);
+        if (pos == null) pendingPositions.put(playerId, new double[]{x, y});
+        else { pos[0] = x; pos[1] = y; }
+    }
+
+    /** Coalesced like {@link #position}: only the last HP per player within a batch is written. */
+    public synchronized void playerHp(String playerId, int hp) {
+        pendingHp.put(playerId, hp);
+    }
+
+    public synchronized void playerJoined(PlayerState p) {
+        begin(PLAYER_JOIN);
+        writeString(p.getPlayerId());
+        writeDouble(p.getX());
+        writeDouble(p.getY());
+        end();
+    }
+
+    public synchronized void playerRenamed(String oldId, String newId) {
+        // Positions and HP recorded under the old id must land before the rename
+        writePending();
+        begin(PLAYER_RENAME);
+        writeString(oldId);
+        writeString(newId);
+        end();
+    }
+
+    // --- Segments ---
+
+    /** Starts writing at {@code firstSegment}, after every segment found on disk. Called once, after replay. */
+    public synchronized void open(long firstSegment) {
+        segment = firstSegment;
+    }
+
+    /**
+     * Tick thread: closes the current segment and starts the next one.
+     * Returns the new segment number, i.e. the first segment a snapshot taken now does not cover.
+     */
+    public synchronized long rotate() {
+        writePending();
+        byte[] tail = takeBatch();
+        long closed = segment++;
+        bytesInSegment = 0;
+        submit(() -> append(closed, tail));
+        return segment;
+    }
+
+    public synchronized long getBytesInSegment() {
+        return bytesInSegment + batch.size();
+    }
+
+    /** Runs on the writer thread after everything queued so far, so it sees the log in order. */
+    public void submit(IORunnable task) {
+        writer.execute(() -> {
+            try {
+                task.run();
+            } catch (IOException e) {
+                System.err.println(" [WAL] " + e.getMessage());
+            }
+        });
+    }
+
+    /** Writer thread: deletes segments older than {@code segment}; they are covered by a snapshot. */
+    public void deleteBefore(long segment) throws IOException {
+        if (channelSegment < segment) closeChannel();
+        for (long s : listSegments()) {
+            if (s < segment) Files.deleteIfExists(segmentPath(s));
+        }
+    }
+
+    /** Flushes the last batch and closes the file. Blocks until done. */
+    public void close() {
+        writer.execute(this::flushQuietly);
+        writer.execute(this::closeChannel);
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    public interface IORunnable {
+        void run() throws IOException;
+    }
+
+    // --- Replay ---
+
+    /** Segment numbers found on disk, ascending. */
+    public List<Long> listSegments() {
+        List<Long> out = new ArrayList<>();
+        String[] names = dir.list();
+        if (names == null) return out;
+        for (String name : names) {
+            if (!name.startsWith(SEGMENT_PREFIX)) continue;
+            try {
+                out.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length())));
+            } catch (NumberFormatException ignored) {
+                // Not one of ours
+            }
+        }
+        out.sort(null);
+        return out;
+    }
+
+    /**
+     * Tells replay which loaded state already contains a segment's records. Snapshots written as
+     * several files (see {@link RegionStore}) can be newer than the segment they were loaded from.
+     */
+    public interface Coverage {
+        Coverage NONE = new Coverage() {
+            @Override public boolean coversObject(int x, int y, long segment) { return false; }
+            @Override public boolean coversPlayer(String playerId, long segment) { return false; }
+        };
+
+        boolean coversObject(int x, int y, long segment);
+        boolean coversPlayer(String playerId, long segment);
+    }
+
+    /**
+     * Applies every record of segments {@code >= fromSegment} to the loaded world, skipping
+     * records {@code coverage} says are already in them. Returns the number of records read.
+     */
+    public int replay(long fromSegment, WorldObjectIndex objects, Map<String, PlayerState> players,
+                      Function<String, Item> items, Coverage coverage) throws IOException {
+        int applied = 0;
+        for (long s : listSegments()) {
+            if (s < fromSegment) continue;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segmentPath(s))))) {
+                byte[] payload;
+                while ((payload = readRecord(in)) != null) {
+                    apply(new DataInputStream(new ByteArrayInputStream(payload)), s, objects, players, items, coverage);
+                    applied++;
+                }
+            }
+        }
+        return applied;
+    }
+
+    // Null at end of segment or at a torn / corrupt tail record
+    private byte[] readRecord(DataInputStream in) throws IOException {
+        try {
+            int len = in.readInt();
+            int sum = in.readInt();
+            if (len <= 0 || len > (1 << 20)) return null;
+            byte[] payload = new byte[len];
+            in.readFully(payload);
+            crc.reset();
+            crc.update(payload);
+            return (int) crc.getValue() == sum ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static void apply(DataInputStream in, long s, WorldObjectIndex objects, Map<String, PlayerState> players,
+                              Function<String, Item> items, Coverage coverage) throws IOException {
+        byte op = in.readByte();
+        switch (op) {
+            case PLACE -> {
+                WorldObject o = new WorldObject();
+                o.id = readString(in);
+                o.type = readString(in);
+                o.x = in.readInt();
+                o.y = in.readInt();
+                o.hp = in.readInt();
+                o.maxHp = in.readInt();
+                o.ownerId = readString(in);
+                if (!coverage.coversObject(o.x, o.y, s)) objects.put(o);
+            }
+            case REMOVE -> {
+                int x = in.readInt(), y = in.readInt();
+                if (!coverage.coversObject(x, y, s)) objects.remove(x, y);
+            }
+            case OBJECT_HP -> {
+                int x = in.readInt(), y = in.readInt();
+                int hp = in.readInt();
+                if (coverage.coversObject(x, y, s)) return;
+                WorldObject o = objects.get(x, y);
+                if (o != null) o.hp = hp;
+            }
+            case INV_ADD, INV_REMOVE -> {
+                String playerId = readString(in);
+                PlayerState p = players.get(playerId);
+                String itemId = readString(in);
+                int amount = in.readInt();
+                // Inventory deltas are not idempotent: never apply one twice
+                if (p == null || coverage.coversPlayer(playerId, s)) return;
+                if (op == INV_REMOVE) p.removeItem(itemId, amount);
+                else {
+                    Item item = items.apply(itemId);
+                    if (item != null) p.addItem(item, amount);
+                }
+            }
+            case POSITION -> {
+                String playerId = readString(in);
+                PlayerState p = players.get(playerId);
+                double x = in.readDouble(), y = in.readDouble();
+                if (p != null && !coverage.coversPlayer(playerId, s)) { p.setX(x); p.setY(y); }
+            }
+            case PLAYER_HP -> {
+                String playerId = readString(in);
+                PlayerState p = players.get(playerId);
+                int hp = in.readInt();
+                if (p != null && !coverage.coversPlayer(playerId, s)) p.setHp(hp);
+            }
+            case PLAYER_JOIN -> {
+                String id = readString(in);
+                players.putIfAbsent(id, new PlayerState(id, in.readDouble(), in.readDouble()));
+            }
+            case PLAYER_RENAME -> {
+                String oldId = readString(in);
+                String newId = readString(in);
+                PlayerState p = players.remove(oldId);
+                // A newer file may already hold the player under its new id
+                if (p != null && !players.containsKey(newId)) {
+                    p.setPlayerId(newId);
+                    players.put(newId, p);
+                }
+                objects.forEach(o -> {
+                    if (oldId.equals(o.ownerId) && !coverage.coversObject(o.x, o.y, s)) o.ownerId = newId;
+                });
+            }
+            default -> throw new IOException("Unknown WAL opcode " + op);
+        }
+    }
+
+    // --- Encoding ---
+
+    private void begin(byte op) {
+        scratch.reset();
+        try {
+            record.writeByte(op);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeInt(int v) {
+        try { record.writeInt(v); } catch (IOException e) { throw new UncheckedIOException(e); }
+    }
+
+    private void writeDouble(double v) {
+        try { record.writeDouble(v); } catch (IOException e) { throw new UncheckedIOException(e); }
+    }
+
+    // Null-safe: a leading flag byte marks null
+    private void writeString(String s) {
+        try {
+            record.writeBoolean(s != null);
+            if (s != null) record.writeUTF(s);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    // Frames the scratch record into the batch
+    private void end() {
+        crc.reset();
+        crc.update(scratch.toByteArray());
+        int len = scratch.size();
+        int sum = (int) crc.getValue();
+        batch.write(len >>> 24); batch.write(len >>> 16); batch.write(len >>> 8); batch.write(len);
+        batch.write(sum >>> 24); batch.write(sum >>> 16); batch.write(sum >>> 8); batch.write(sum);
+        batch.writeBytes(scratch.toByteArray());
+    }
+
+    private void writePending() {
+        for (Map.Entry<String, double[]> e : pendingPositions.entrySet()) {
+            begin(POSITION);
+            writeString(e.getKey());
+            writeDouble(e.getValue()[0]);
+            writeDouble(e.getValue()[1]);
+            end();
+        }
+        pendingPositions.clear();
+        for (Map.Entry<String, Integer> e : pendingHp.entrySet()) {
+            begin(PLAYER_HP);
+            writeString(e.getKey());
+            writeInt(e.getValue());
+            end();
+        }
+        pendingHp.clear();
+    }
+
+    private byte[] takeBatch() {
+        byte[] bytes = batch.toByteArray();
+        batch.reset();
+        bytesInSegment += bytes.length;
+        return bytes;
+    }
+
+    // --- Writer thread ---
+
+    private void flushQuietly() {
+        byte[] bytes;
+        long s;
+        synchronized (this) {
+            writePending();
+            if (batch.size() == 0) return;
+            bytes = takeBatch();
+            s = segment;
+        }
+        try {
+            append(s, bytes);
+        } catch (IOException e) {
+            System.err.println(" [WAL] Append failed: " + e.getMessage());
+        }
+    }
+
+    // A rotation tail can arrive after the next segment was already opened, so reopen by number
+    private void append(long s, byte[] bytes) throws IOException {
+        if (bytes.length == 0) return;
+        if (channelSegment != s) openChannel(s);
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        while (buf.hasRemaining()) channel.write(buf);
+        if (fsync) channel.force(false);
+    }
+
+    private void openChannel(long s) throws IOException {
+        closeChannel();
+        channel = FileChannel.open(segmentPath(s), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        channelSegment = s;
+    }
+
+    private void closeChannel() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println(" [WAL] Close failed: " + e.getMessage());
+        }
+        channel = null;
+        channelSegment = -1;
+    }
+
+    private Path segmentPath(long s) {
+        return new File(dir, SEGMENT_PREFIX + s).toPath();
+    }
+}
@@ -3,66 +3,250 @@ package com.archemidia.service;
 import com.archemidia.model.Monster;
 import com.archemidia.model.PlayerState;
 import com.archemidia.model.WorldObject;
+import com.archemidia.model.WorldObjectIndex;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Snapshot + write-ahead log persistence.
+ * The snapshot holds the world's differences from the generated {@link WorldBaseline} (plus
+ * players and monsters) and names the first log segment it does not cover;
+ * everything since is in the {@link MutationLog}. Loading replays those segments on top of it.
+ * In BINARY format the snapshot is split into region and player files ({@link RegionStore}) and a
+ * checkpoint only rewrites the ones marked dirty since the previous checkpoint; in JSON format it is
+ * the single {@code world_data.json}. A checkpoint rotates the log, encodes on the tick thread (so the
+ * snapshot is consistent) and writes it plus deletes the covered segments in the background.
+ */
 @Service
 public class PersistenceService {
 
+    public enum Format { JSON, BINARY }
+
     private final ObjectMapper mapper = new ObjectMapper();
     private final String DATA_FILE = "world_data.json";
+    // Single-file binary snapshot of earlier versions, still read for migration
+    private final String LEGACY_BINARY_FILE = "world_data.bin";
     private final String TEMP_FILE = "world_data.tmp";
 
-    public PersistenceService() {
+    private final ItemRegistry itemRegistry;
+    private final MutationLog mutationLog;
+    private final RegionStore regions;
+    private final boolean fsync;
+    private final Format format;
+    private final boolean compress;
+    private boolean loadedFromRegions = false;
+
+    public PersistenceService(ItemRegistry itemRegistry,
+                              @Value("${game.wal.fsync:true}") boolean fsync,
+                              @Value("${game.wal.flush-interval-ms:200}") long flushIntervalMs,
+                              @Value("${game.persistence.format:BINARY}") Format format,
+                              @Value("${game.persistence.compress:false}") boolean compress,
+                              @Value("${game.persistence.region-tiles:32}") int regionTiles) {
         mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.itemRegistry = itemRegistry;
+        this.fsync = fsync;
+        this.format = format;
+        this.compress = compress;
+        this.mutationLog = new MutationLog(new File("."), fsync, flushIntervalMs);
+        this.regions = new RegionStore(new File("world"), regionTiles);
+    }
+
+    public MutationLog getMutationLog() { return mutationLog; }
+
+    @PreDestroy
+    public void close() {
+        mutationLog.close();
     }
 
-    public void saveData(Map<String, WorldObject> objects, Map<String, PlayerState> players, Map<String, Monster> monsters) {
+    // --- Dirty tracking (tick thread) ---
+
+    /** The region holding tile (x, y) changed and is rewritten at the next checkpoint. */
+    public void markRegionDirty(int x, int y) { regions.markRegion(x, y); }
+
+    /** The player changed and is rewritten at the next checkpoint. */
+    public void markPlayerDirty(String playerId) { regions.markPlayer(playerId); }
+
+    /**
+     * Tick thread (or before the tick loop starts): checkpoints the given world state.
+     * Returns immediately; the file work happens on the log's writer thread.
+     */
+    public void checkpoint(WorldObjectIndex objects, Map<String, PlayerState> players, Map<String, Monster> monsters) {
+        long segment = mutationLog.rotate();
+        long start = System.nanoTime();
+        if (format == Format.BINARY) {
+            // Encode here, on the caller's thread, so the snapshot is consistent; write in the background
+            RegionStore.Checkpoint cp = regions.prepare(objects, players, monsters, segment);
+            long encodeNanos = System.nanoTime() - start;
+            mutationLog.submit(() -> {
+                long writeStart = System.nanoTime();
+                if (!regions.write(cp, compress, fsync)) {
+                    System.err.println(" [Persistence] Skipped a checkpoint prepared before a failed one; the next one writes its regions.");
+                    return;
+                }
+                retire(new File(DATA_FILE));
+                retire(new File(LEGACY_BINARY_FILE));
+                mutationLog.deleteBefore(segment);
+                System.out.println(" [Persistence] World saved (" + cp.getRegionCount() + " regions, " + cp.getPlayerCount() + " players rewritten, encode "
+                        + encodeNanos / 1_000_000 + " ms, write " + (System.nanoTime() - writeStart) / 1_000_000 + " ms, log continues at segment " + segment + ").");
+            });
+            return;
+        }
+
+        SaveData data = new SaveData();
+        List<Long> removed = new ArrayList<>();
+        objects.collectAllChanges(data.objects, removed::add);
+        data.removed = RegionStore.toPairs(removed);
+        data.baselineVersion = WorldBaseline.VERSION;
+        data.players = players;
+        data.monsters = monsters;
+        data.walSegment = segment;
+        byte[] bytes;
         try {
-            SaveData data = new SaveData();
-            data.objects = objects;
-            data.players = players;
-            data.monsters = monsters;
+            bytes = mapper.writeValueAsBytes(data);
+        } catch (IOException e) {
+            System.err.println(" [Persistence] Failed to serialize world: " + e.getMessage());
+            return;
+        }
+        long encodeNanos = System.nanoTime() - start;
 
+        File target = new File(DATA_FILE);
+        File tempFile = new File(TEMP_FILE);
+        int objectCount = data.objects.size(), playerCount = players.size();
+        mutationLog.submit(() -> {
+            long writeStart = System.nanoTime();
             // Atomic Write: Save to temp, then rename
-            File tempFile = new File(TEMP_FILE);
-            mapper.writeValue(tempFile, data);
+            try (FileOutputStream out = new FileOutputStream(tempFile)) {
+                out.write(bytes);
+                if (fsync) out.getFD().sync();
+            }
+            Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // Region files are stale from here on; without their commit marker they are never loaded
+            retire(regions.metaFile());
+            retire(new File(LEGACY_BINARY_FILE));
+            mutationLog.deleteBefore(segment);
+            System.out.println(" [Persistence] World saved as JSON (" + objectCount + " objects, " + playerCount + " players, encode "
+                    + encodeNanos / 1_000_000 + " ms, write " + (System.nanoTime() - writeStart) / 1_000_000 + " ms, log continues at segment " + segment + ").");
+        });
+    }
+
+    // Once a snapshot exists in the configured format, the others are stale: keep them only as a backup
+    private void retire(File other) {
+        if (other.exists()) {
+            File backup = new File(other.getPath() + ".migrated");
+            if (other.renameTo(backup)) System.out.println(" [Persistence] Migrated: old snapshot kept as " + backup.getPath());
+        }
+    }
 
-            File realFile = new File(DATA_FILE);
-            Files.move(tempFile.toPath(), realFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * Loads the saved world: objects go into {@code objects} (on top of its baseline), players and
+     * monsters are returned. Null when there is no usable save.
+     */
+    public SaveData loadData(WorldObjectIndex objects) {
+        SaveData data = readSnapshot();
+        // Region files carry their own coverage; anything else gets written out in full at the next checkpoint
+        boolean fromRegions = data != null && loadedFromRegions;
+        if (!fromRegions) regions.markAll();
+        if (data != null) {
+            for (PlayerState p : data.players.values()) p.restoreInventory(itemRegistry::getItem);
+            if (data.baselineVersion == 0) {
+                // Saved before the baseline existed: every generated object is in there
+                System.out.println(" [Persistence] Converting a full-world save into baseline differences.");
+                objects.loadFullState(data.objects.values());
+                regions.markAll();
+            } else {
+                if (data.baselineVersion != WorldBaseline.VERSION) {
+                    System.err.println(" [Persistence] Save was made against world baseline v" + data.baselineVersion
+                            + ", this server generates v" + WorldBaseline.VERSION + ". Changes are applied to the new baseline.");
+                    // Re-derive every region's differences against the current baseline
+                    regions.markAll();
+                }
+                objects.applyChanges(data.objects.values(), data.removed);
+            }
+            data.objects.clear();
+        }
+        List<Long> segments = mutationLog.listSegments();
+        long next = data != null ? data.walSegment : 0;
 
-            System.out.println(" [Persistence] World saved (" + objects.size() + " objects, " + players.size() + " players).");
-        } catch (IOException e) {
-            System.err.println(" [Persistence] Failed to save world: " + e.getMessage());
+        if (!segments.isEmpty()) {
+            next = Math.max(next, segments.get(segments.size() - 1) + 1);
+            if (data == null) {
+                // A log without its base snapshot cannot be replayed meaningfully
+                System.err.println(" [Persistence] Found " + segments.size() + " log segments but no snapshot. Discarding them.");
+                try {
+                    mutationLog.deleteBefore(next);
+                } catch (IOException e) {
+                    System.err.println(" [Persistence] " + e.getMessage());
+                }
+            } else {
+                try {
+                    int applied = mutationLog.replay(data.walSegment, objects, data.players, itemRegistry::getItem,
+                            fromRegions ? regions : MutationLog.Coverage.NONE);
+                    System.out.println(" [Persistence] Replayed " + applied + " logged mutations.");
+                } catch (IOException e) {
+                    System.err.println(" [Persistence] Log replay stopped early: " + e.getMessage());
+                }
+            }
         }
+        mutationLog.open(next);
+        return data;
     }
 
-    public SaveData loadData() {
-        File f = new File(DATA_FILE);
-        if (!f.exists() || f.length() == 0) return null;
+    // Prefers the configured format; falls back to the others, which the next checkpoint migrates
+    private SaveData readSnapshot() {
+        File json = new File(DATA_FILE);
+        File legacy = new File(LEGACY_BINARY_FILE);
+        List<File> candidates = format == Format.BINARY
+                ? List.of(regions.metaFile(), legacy, json)
+                : List.of(json, regions.metaFile(), legacy);
 
-        try {
-            return mapper.readValue(f, new TypeReference<SaveData>() {});
-        } catch (IOException e) {
-            System.err.println(" [Persistence] Corrupted save detected. Starting fresh.");
-            // Rename corrupted file backup
-            f.renameTo(new File(DATA_FILE + ".bak_" + System.currentTimeMillis()));
-            return null;
+        for (File f : candidates) {
+            if (!f.exists() || f.length() == 0) continue;
+            long start = System.nanoTime();
+            try {
+                SaveData data;
+                if (f.equals(regions.metaFile())) {
+                    data = regions.load(itemRegistry::getItem);
+                    loadedFromRegions = true;
+                } else if (BinarySnapshot.isBinarySnapshot(f)) {
+                    data = BinarySnapshot.read(f, itemRegistry::getItem);
+                } else {
+                    data = mapper.readValue(f, new TypeReference<SaveData>() {});
+                }
+                System.out.println(" [Persistence] Loaded " + f.getPath() + " in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+                return data;
+            } catch (IOException e) {
+                System.err.println(" [Persistence] Corrupted save detected (" + e.getMessage() + "). Starting fresh.");
+                // Rename corrupted file backup
+                f.renameTo(new File(f.getPath() + ".bak_" + System.currentTimeMillis()));
+                return null;
+            }
         }
+        return null;
     }
 
     public static class SaveData {
         public Map<String, WorldObject> objects = new ConcurrentHashMap<>();
         public Map<String, PlayerState> players = new ConcurrentHashMap<>();
         public Map<String, Monster> monsters = new ConcurrentHashMap<>();
+        // Generated objects are not saved: objects holds the placed/changed ones, removed the
+        // flattened (x, y) tiles whose generated object is gone. 0 = an older save listing everything
+        public int baselineVersion = 0;
+        public int[] removed = new int[0];
+        // First log segment not already contained in this snapshot
+        public long walSegment = 0;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,336 @@
+package com.archemidia.service;
+
+import com.archemidia.model.Monster;
+import com.archemidia.model.PlayerState;
+import com.archemidia.model.WorldObject;
+import com.archemidia.model.WorldObjectIndex;
+import com.archemidia.model.item.Item;
+import com.archemidia.util.LongObjectMap;
+import com.archemidia.util.TileKey;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Region-file layout of the BINARY format, so a checkpoint only rewrites what changed:
+ * <pre>
+ * world/world.bin               monsters; written last, it commits a checkpoint
+ * world/regions/r.X.Y.bin       differences of one regionTiles x regionTiles square from the
+ *                               generated baseline (no file if there are none)
+ * world/players/&lt;id&gt;.bin       one player
+ * </pre>
+ * Every file is a {@link BinarySnapshot} stamped with the first log segment it does not cover.
+ * Replay starts at world.bin's segment and uses the per-file stamps as its {@link MutationLog.Coverage},
+ * so files already rewritten by a checkpoint that crashed before committing are not replayed twice.
+ * Dirty marks come from the tick thread; everything else runs on the log's writer thread.
+ * A checkpoint that fails to write hands its marks back, and no checkpoint prepared before that
+ * is committed, so the log segments holding those changes are kept until a later one covers them.
+ */
+public class RegionStore implements MutationLog.Coverage {
+    private static final String META_FILE = "world.bin";
+    private static final String SUFFIX = ".bin";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File root;
+    private final File regionsDir;
+    private final File playersDir;
+    private final int regionTiles;
+
+    // Guarded by this
+    private final Set<Long> dirtyRegions = new HashSet<>();
+    private final Set<String> dirtyPlayers = new HashSet<>();
+    private boolean fullRewrite = false;
+    private long prepared = 0;
+    // Checkpoints numbered below this were prepared without the marks of a failed one
+    private long firstValid = 0;
+
+    // Segment stamps of the files read at startup, used during replay only
+    private final LongObjectMap<Long> regionSegments = new LongObjectMap<>();
+    private final Map<String, Long> playerSegments = new HashMap<>();
+
+    public RegionStore(File root, int regionTiles) {
+        this.root = root;
+        this.regionsDir = new File(root, "regions");
+        this.playersDir = new File(root, "players");
+        this.regionTiles = regionTiles;
+    }
+
+    public long regionOf(int x, int y) {
+        return TileKey.pack(Math.floorDiv(x, regionTiles), Math.floorDiv(y, regionTiles));
+    }
+
+    public synchronized void markRegion(int x, int y) { dirtyRegions.add(regionOf(x, y)); }
+    public synchronized void markPlayer(String playerId) { dirtyPlayers.add(playerId); }
+
+    /** The next checkpoint rewrites every region and player and drops files it did not write. */
+    public synchronized void markAll() { fullRewrite = true; }
+
+    /** The commit marker, for retiring the layout when another format takes over. */
+    public File metaFile() { return new File(root, META_FILE); }
+
+    // --- Checkpoint ---
+
+    /** Encoded files of one checkpoint. Built on the tick thread, written by {@link #write}. */
+    public static final class Checkpoint {
+        private final long seq;
+        private final boolean full;
+        // The marks this checkpoint took, handed back if it is not committed
+        private final Set<Long> dirtyRegions;
+        private final Set<String> dirtyPlayers;
+        private final Map<File, BinarySnapshot.Encoded> regions = new HashMap<>();
+        private final List<File> emptyRegions = new ArrayList<>();
+        private final Map<File, BinarySnapshot.Encoded> players = new HashMap<>();
+        private final Set<String> livePlayerFiles = new HashSet<>();
+        private BinarySnapshot.Encoded meta;
+
+        private Checkpoint(long seq, boolean full, Set<Long> dirtyRegions, Set<String> dirtyPlayers) {
+            this.seq = seq;
+            this.full = full;
+            this.dirtyRegions = dirtyRegions;
+            this.dirtyPlayers = dirtyPlayers;
+        }
+
+        public int getRegionCount() { return regions.size() + emptyRegions.size(); }
+        public int getPlayerCount() { return players.size(); }
+    }
+
+    /**
+     * Tick thread: encodes the regions and players marked dirty since the last call, plus the
+     * monsters, stamped with {@code segment}. Clears the marks; {@link #write} restores them if it fails.
+     */
+    public Checkpoint prepare(WorldObjectIndex objects, Map<String, PlayerState> players, Map<String, Monster> monsters, long segment) {
+        Set<Long> regions;
+        Set<String> changedPlayers;
+        boolean full;
+        long seq;
+        synchronized (this) {
+            seq = prepared++;
+            regions = new HashSet<>(dirtyRegions);
+            changedPlayers = new HashSet<>(dirtyPlayers);
+            full = fullRewrite;
+            dirtyRegions.clear();
+            dirtyPlayers.clear();
+            fullRewrite = false;
+        }
+
+        Checkpoint cp = new Checkpoint(seq, full, new HashSet<>(regions), new HashSet<>(changedPlayers));
+        if (full) {
+            // Only materialized chunks can differ from the baseline
+            int chunk = WorldObjectIndex.CHUNK_TILES;
+            objects.forEachMaterializedChunk(c -> {
+                int minX = TileKey.unpackX(c) * chunk, minY = TileKey.unpackY(c) * chunk;
+                for (int ry = Math.floorDiv(minY, regionTiles); ry <= Math.floorDiv(minY + chunk - 1, regionTiles); ry++) {
+                    for (int rx = Math.floorDiv(minX, regionTiles); rx <= Math.floorDiv(minX + chunk - 1, regionTiles); rx++) {
+                        regions.add(TileKey.pack(rx, ry));
+                    }
+                }
+            });
+            changedPlayers.addAll(players.keySet());
+        }
+
+        List<Long> removed = new ArrayList<>();
+        for (long region : regions) {
+            int minX = TileKey.unpackX(region) * regionTiles;
+            int minY = TileKey.unpackY(region) * regionTiles;
+            Map<String, WorldObject> changed = new HashMap<>();
+            removed.clear();
+            objects.collectChanges(minX, minY, minX + regionTiles - 1, minY + regionTiles - 1, changed, removed::add);
+            File file = regionFile(region);
+            if (changed.isEmpty() && removed.isEmpty()) {
+                cp.emptyRegions.add(file);
+                continue;
+            }
+            PersistenceService.SaveData data = new PersistenceService.SaveData();
+            data.objects = changed;
+            data.removed = toPairs(removed);
+            data.baselineVersion = WorldBaseline.VERSION;
+            data.walSegment = segment;
+            cp.regions.put(file, BinarySnapshot.encode(data));
+        }
+
+        for (String id : changedPlayers) {
+            PlayerState p = players.get(id);
+            if (p == null) continue; // Renamed since; its old file is dropped below
+            PersistenceService.SaveData data = new PersistenceService.SaveData();
+            data.players = Map.of(id, p);
+            data.walSegment = segment;
+            cp.players.put(playerFile(id), BinarySnapshot.encode(data));
+        }
+        for (String id : players.keySet()) cp.livePlayerFiles.add(playerFile(id).getName());
+
+        PersistenceService.SaveData meta = new PersistenceService.SaveData();
+        meta.monsters = monsters;
+        meta.baselineVersion = WorldBaseline.VERSION;
+        meta.walSegment = segment;
+        cp.meta = BinarySnapshot.encode(meta);
+        return cp;
+    }
+
+    /**
+     * Writer thread: replaces each file atomically, then commits by replacing world.bin.
+     * Deletions happen before the commit: a region that became empty stays empty even if the
+     * log segments that emptied it are replayed after a crash.
+     * Returns false, writing nothing, if the checkpoint was prepared before an earlier one failed:
+     * it misses that one's regions, so committing it would let the caller delete their log segments.
+     * Either way, and when the write throws, the marks go back for the next checkpoint.
+     */
+    public boolean write(Checkpoint cp, boolean deflate, boolean fsync) throws IOException {
+        synchronized (this) {
+            if (cp.seq < firstValid) {
+                restore(cp);
+                return false;
+            }
+        }
+        try {
+            writeFiles(cp, deflate, fsync);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) { restore(cp); }
+            throw e;
+        }
+    }
+
+    // Guarded by this. Checkpoints prepared so far lack these marks, so none of them may commit
+    private void restore(Checkpoint cp) {
+        dirtyRegions.addAll(cp.dirtyRegions);
+        dirtyPlayers.addAll(cp.dirtyPlayers);
+        if (cp.full) fullRewrite = true;
+        firstValid = prepared;
+    }
+
+    private void writeFiles(Checkpoint cp, boolean deflate, boolean fsync) throws IOException {
+        if (!regionsDir.isDirectory() && !regionsDir.mkdirs()) throw new IOException("Cannot create " + regionsDir);
+        if (!playersDir.isDirectory() && !playersDir.mkdirs()) throw new IOException("Cannot create " + playersDir);
+
+        for (Map.Entry<File, BinarySnapshot.Encoded> e : cp.regions.entrySet()) writeAtomically(e.getKey(), e.getValue(), deflate, fsync);
+        for (File f : cp.emptyRegions) Files.deleteIfExists(f.toPath());
+        if (cp.full) deleteUnlisted(regionsDir, cp.regions.keySet());
+
+        for (Map.Entry<File, BinarySnapshot.Encoded> e : cp.players.entrySet()) writeAtomically(e.getKey(), e.getValue(), deflate, fsync);
+        String[] names = playersDir.list();
+        if (names != null) {
+            for (String name : names) {
+                if (name.endsWith(SUFFIX) && !cp.livePlayerFiles.contains(name)) Files.deleteIfExists(new File(playersDir, name).toPath());
+            }
+        }
+
+        writeAtomically(new File(root, META_FILE), cp.meta, deflate, fsync);
+    }
+
+    static int[] toPairs(List<Long> tiles) {
+        int[] out = new int[tiles.size() * 2];
+        for (int i = 0; i < tiles.size(); i++) {
+            out[i * 2] = TileKey.unpackX(tiles.get(i));
+            out[i * 2 + 1] = TileKey.unpackY(tiles.get(i));
+        }
+        return out;
+    }
+
+    private void deleteUnlisted(File dir, Set<File> keep) throws IOException {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        for (File f : files) {
+            if (f.getName().endsWith(SUFFIX) && !keep.contains(f)) Files.deleteIfExists(f.toPath());
+        }
+    }
+
+    private static void writeAtomically(File target, BinarySnapshot.Encoded encoded, boolean deflate, boolean fsync) throws IOException {
+        File temp = new File(target.getPath() + TEMP_SUFFIX);
+        encoded.writeTo(temp, deflate, fsync);
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // --- Load ---
+
+    /**
+     * Reads world.bin and every region and player file into one save. A damaged region or player
+     * file is set aside and its content rebuilt from the log as far as possible; a damaged
+     * world.bin fails the whole load.
+     */
+    public PersistenceService.SaveData load(Function<String, Item> items) throws IOException {
+        PersistenceService.SaveData data = BinarySnapshot.read(new File(root, META_FILE), items);
+
+        File[] regionFiles = regionsDir.listFiles((d, name) -> name.startsWith("r.") && name.endsWith(SUFFIX));
+        if (regionFiles != null) {
+            int[] removed = new int[0];
+            int n = 0;
+            for (File f : regionFiles) {
+                long region = parseRegion(f.getName());
+                PersistenceService.SaveData part = readPart(f, items);
+                if (part == null) continue;
+                data.objects.putAll(part.objects);
+                if (n + part.removed.length > removed.length) removed = Arrays.copyOf(removed, Math.max(removed.length * 2, n + part.removed.length));
+                System.arraycopy(part.removed, 0, removed, n, part.removed.length);
+                n += part.removed.length;
+                regionSegments.put(region, part.walSegment);
+            }
+            data.removed = Arrays.copyOf(removed, n);
+        }
+
+        File[] playerFiles = playersDir.listFiles((d, name) -> name.endsWith(SUFFIX));
+        if (playerFiles != null) {
+            for (File f : playerFiles) {
+                PersistenceService.SaveData part = readPart(f, items);
+                if (part == null) continue;
+                for (PlayerState p : part.players.values()) {
+                    data.players.put(p.getPlayerId(), p);
+                    playerSegments.put(p.getPlayerId(), part.walSegment);
+                }
+            }
+        }
+        return data;
+    }
+
+    private PersistenceService.SaveData readPart(File f, Function<String, Item> items) {
+        try {
+            return BinarySnapshot.read(f, items);
+        } catch (IOException e) {
+            System.err.println(" [Persistence] Damaged file " + f.getPath() + " (" + e.getMessage() + "). Setting it aside.");
+            f.renameTo(new File(f.getPath() + ".bak_" + System.currentTimeMillis()));
+            return null;
+        }
+    }
+
+    private long parseRegion(String name) {
+        String[] parts = name.substring(2, name.length() - SUFFIX.length()).split("\\.");
+        return TileKey.pack(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+    }
+
+    private File regionFile(long region) {
+        return new File(regionsDir, "r." + TileKey.unpackX(region) + "." + TileKey.unpackY(region) + SUFFIX);
+    }
+
+    // Session ids are UUIDs today; anything else is made file-name safe
+    private File playerFile(String playerId) {
+        return new File(playersDir, playerId.replaceAll("[^A-Za-z0-9_-]", "_") + SUFFIX);
+    }
+
+    // --- Replay coverage: whatever replay still applies has to be written again ---
+
+    @Override
+    public boolean coversObject(int x, int y, long segment) {
+        long region = regionOf(x, y);
+        Long stamp = regionSegments.get(region);
+        if (stamp != null && segment < stamp) return true;
+        synchronized (this) { dirtyRegions.add(region); }
+        return false;
+    }
+
+    @Override
+    public boolean coversPlayer(String playerId, long segment) {
+        Long stamp = playerSegments.get(playerId);
+        if (stamp != null && segment < stamp) return true;
+        markPlayer(playerId);
+        return false;
+    }
+}
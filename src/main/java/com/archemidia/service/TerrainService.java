@@ -0,0 +1,67 @@
+package com.archemidia.service;
+
+import com.archemidia.util.PerlinNoise;
+import org.springframework.stereotype.Service;
+
+import java.util.stream.IntStream;
+
+/**
+ * The one biome raster of the map, built once at startup and read by gameplay (collision,
+ * spawning, world baseline) and by the terrain chunks clients render, so both always agree.
+ * Lookups are a bounds check and an array read.
+ */
+@Service
+public class TerrainService {
+    public static final int VOID = -1;
+    public static final int GRASS = 0;
+    public static final int SAND = 1;
+    public static final int SNOW = 2;
+
+    // Biome Thresholds (Linear with noise)
+    private static final int SNOW_LIMIT = -40;
+    private static final int SAND_LIMIT = 40;
+
+    private final int radius = GameService.MAP_RADIUS;
+    private final int side = radius * 2 + 1;
+    // Row-major over the bounding square of the map disc; never written after construction
+    private final byte[] raster = new byte[side * side];
+
+    public TerrainService() {
+        long start = System.nanoTime();
+        PerlinNoise biomeNoise = new PerlinNoise(12345);
+
+        // The boundary wobble depends on the column only: one bulk row of the z = 0 slice
+        double[] boundary = new double[side];
+        biomeNoise.fillRow(boundary, 0, side, -radius, 0.05, 0);
+        for (int ix = 0; ix < side; ix++) boundary[ix] *= 15.0;
+
+        IntStream.range(0, side).parallel().forEach(iy -> {
+            int y = iy - radius;
+            for (int ix = 0; ix < side; ix++) {
+                int x = ix - radius;
+                int biome;
+                // --- Finite Map Logic (Round Boundary) ---
+                if (x * x + y * y > radius * radius) biome = VOID;
+                // This creates wavy horizontal lines instead of blobs
+                else if (y < SNOW_LIMIT + boundary[ix]) biome = SNOW;
+                else if (y > SAND_LIMIT + boundary[ix]) biome = SAND;
+                else biome = GRASS;
+                raster[iy * side + ix] = (byte) biome;
+            }
+        });
+        System.out.println(" [Terrain] Built " + side + "x" + side + " biome raster in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+    }
+
+    public int getRadius() { return radius; }
+
+    /** Biome of tile (x, y); {@link #VOID} outside the map. */
+    public int getTerrain(int x, int y) {
+        int ix = x + radius;
+        int iy = y + radius;
+        if (ix < 0 || iy < 0 || ix >= side || iy >= side) return VOID;
+        return raster[iy * side + ix];
+    }
+
+    /** The raster itself, row-major over [-radius, radius]^2, for consumers that index it directly. Read-only. */
+    public byte[] getRaster() { return raster; }
+}
@@ -1,19 +1,22 @@
 package com.archemidia.service;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 @Service
 public class TimeService {
-    private double gameTime = 0.25; // Start at Morning
+    private volatile double gameTime = 0.25; // Start at Morning
 
     // Calculation for 1 Game Day = 30 Real Minutes (1800 seconds)
-    // Tick runs every 100ms (0.1s) -> 10 ticks per second
-    // Total ticks per day = 1800 * 10 = 18000 ticks
-    // Increment per tick = 1.0 / 18000 = 0.000055555...
+    // Advanced in the PHYSICS phase of the tick loop, once per simulation tick
+    // Increment per tick = tickSeconds / 1800 (0.0000277... at 20 Hz)
+    private static final double DAY_LENGTH_SECONDS = 1800.0;
 
-    private final double timeSpeed = 0.00005555555555555555; // Using a high precision value
+    private final double timeSpeed;
+
+    public TimeService(GameTickLoop tickLoop) {
+        this.timeSpeed = tickLoop.getTickSeconds() / DAY_LENGTH_SECONDS;
+        tickLoop.register(GameTickLoop.Phase.PHYSICS, t -> tick());
+    }
 
-    @Scheduled(fixedRate = 100)
     public void tick() {
         gameTime += timeSpeed;
         if (gameTime >= 1.0) {
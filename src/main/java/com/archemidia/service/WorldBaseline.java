@@ -0,0 +1,57 @@
+package com.archemidia.service;
+
+import com.archemidia.model.WorldObjectIndex;
+
+/**
+ * The trees, rocks and cacti every world starts with, derived from the tile's hash noise and biome.
+ * Never saved: saves only hold the differences from it. Any change to the rules below changes
+ * what old saves' differences apply to, so bump {@link #VERSION} along with it.
+ */
+public class WorldBaseline implements WorldObjectIndex.Baseline {
+    // 2: biomes come from TerrainService (Perlin, +-40) instead of hash noise (+-30)
+    public static final int VERSION = 2;
+
+    private final TerrainService terrain;
+    private final int radius;
+
+    public WorldBaseline(TerrainService terrain) {
+        this.terrain = terrain;
+        this.radius = terrain.getRadius();
+    }
+
+    public static double hashNoise(int x, int y) {
+        long seed = 12345;
+        long n = (long)x * 331 + (long)y * 433 + seed;
+        n = (n << 13) ^ n;
+        n = (n * (n * n * 15731 + 789221) + 1376312589) & 0x7fffffff;
+        return (double) n / 2147483647.0;
+    }
+
+    @Override
+    public String typeAt(int x, int y) {
+        if (x * x + y * y > radius * radius) return null;
+        int biome = terrain.getTerrain(x, y);
+        if (biome == -1) return null;
+        // Keep the spawn area clear
+        if (x > -5 && x < 5 && y > -5 && y < 5) return null;
+
+        double r = hashNoise(x, y);
+
+        if (biome == 2) {
+            if (r < 0.025) return "Snow Tree";
+            if (r < 0.035) return "Snow Rock";
+        } else if (biome == 1) {
+            if (r < 0.008) return "Palm Tree";
+            if (r < 0.018) return "Sand Rock";
+            if (r < 0.035) return "Cactus";
+        } else {
+            if (r < 0.025) return "Tree";
+            if (r < 0.035) return "Stone";
+            if (r < 0.045) return "Trunk";
+        }
+        return null;
+    }
+
+    @Override
+    public int radius() { return radius; }
+}
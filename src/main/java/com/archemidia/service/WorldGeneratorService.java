@@ -1,60 +1,118 @@
 package com.archemidia.service;
 
-import com.archemidia.util.PerlinNoise;
+import com.archemidia.util.LongObjectMap;
+import com.archemidia.util.TileKey;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import java.util.ArrayList;
-import java.util.List;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
 
 @Service
 public class WorldGeneratorService {
 
-    private final GameService gameService;
+    /**
+     * Terrain ids of a size x size square, row-major, one byte per tile (-1 void, 0 grass, 1 sand, 2 snow),
+     * plus the same rows pre-rendered as the nested JSON arrays older clients expect.
+     */
+    public record TerrainChunk(int x, int y, int size, byte[] tiles, byte[] json, String etag) {}
+
+    public record CacheStats(int precomputed, int cached, long hits, long misses) {}
 
-    // MUST match GameService seed for consistent biome shapes if GameService uses noise
-    private final PerlinNoise biomeNoise = new PerlinNoise(12345);
+    // Chunks the map is precomputed in; clients use this size by default
+    public static final int DEFAULT_CHUNK_SIZE = 16;
+    public static final int MAX_CHUNK_SIZE = 128;
 
-    // Finite Map Radius
-    private final int MAP_RADIUS = 100;
+    // Same raster gameplay collides against
+    private final TerrainService terrain;
 
-    // Biome Thresholds (Linear with noise)
-    private final int SNOW_LIMIT = -40;
-    private final int SAND_LIMIT = 40;
+    // [NEW] Every aligned default-size chunk touching the map disc; built once, read-only afterwards
+    private final LongObjectMap<TerrainChunk> precomputed = new LongObjectMap<>();
+    // Anything else (other sizes, unaligned origins, outside the map), least recently used evicted first
+    private final Map<Long, TerrainChunk> lru;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
 
-    public WorldGeneratorService(GameService gameService) {
-        this.gameService = gameService;
+    public WorldGeneratorService(TerrainService terrain,
+                                 @Value("${game.map.chunk-cache-size:1024}") int cacheSize) {
+        this.terrain = terrain;
+        this.lru = new LinkedHashMap<>(cacheSize * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, TerrainChunk> eldest) {
+                return size() > cacheSize;
+            }
+        };
+
+        long start = System.nanoTime();
+        int radius = terrain.getRadius();
+        int min = Math.floorDiv(-radius, DEFAULT_CHUNK_SIZE), max = Math.floorDiv(radius, DEFAULT_CHUNK_SIZE);
+        for (int cy = min; cy <= max; cy++) {
+            for (int cx = min; cx <= max; cx++) {
+                int x = cx * DEFAULT_CHUNK_SIZE, y = cy * DEFAULT_CHUNK_SIZE;
+                precomputed.put(TileKey.pack(x, y), build(x, y, DEFAULT_CHUNK_SIZE));
+            }
+        }
+        System.out.println(" [WorldGen] Precomputed " + precomputed.size() + " terrain chunks in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
     }
 
-    public List<List<Integer>> generateChunk(int startX, int startY, int width, int height) {
-        List<List<Integer>> chunk = new ArrayList<>();
-
-        for (int y = 0; y < height; y++) {
-            List<Integer> row = new ArrayList<>();
-            for (int x = 0; x < width; x++) {
-                int globalX = startX + x;
-                int globalY = startY + y;
-
-                int tileId = 0;
-
-                // --- Finite Map Logic (Round Boundary) ---
-                if (globalX * globalX + globalY * globalY > MAP_RADIUS * MAP_RADIUS) {
-                    tileId = -1; // Void
-                } else {
-                    // --- Reverted to Linear Thresholds with Noise ---
-                    // This creates wavy horizontal lines instead of blobs
-                    double boundaryNoise = biomeNoise.noise(globalX * 0.05, 0, 0) * 15.0;
-
-                    if (globalY < SNOW_LIMIT + boundaryNoise) {
-                        tileId = 2; // Snow
-                    } else if (globalY > SAND_LIMIT + boundaryNoise) {
-                        tileId = 1; // Sand
-                    } else {
-                        tileId = 0; // Grass/Jungle
-                    }
-                }
-                row.add(tileId);
+    /** Terrain of the size x size square at tile (startX, startY), from the cache when possible. */
+    public TerrainChunk getChunk(int startX, int startY, int size) {
+        if (size == DEFAULT_CHUNK_SIZE) {
+            TerrainChunk chunk = precomputed.get(TileKey.pack(startX, startY));
+            if (chunk != null) {
+                hits.incrementAndGet();
+                return chunk;
+            }
+        }
+        // Key bits: 24 x | 24 y | 16 size; origins far outside the map simply miss more often
+        long key = ((long) (startX & 0xFFFFFF) << 40) | ((long) (startY & 0xFFFFFF) << 16) | (size & 0xFFFF);
+        synchronized (lru) {
+            TerrainChunk chunk = lru.get(key);
+            if (chunk != null && chunk.x() == startX && chunk.y() == startY && chunk.size() == size) {
+                hits.incrementAndGet();
+                return chunk;
             }
-            chunk.add(row);
         }
+        misses.incrementAndGet();
+        // Generated outside the lock; two threads racing on one key both produce the same bytes
+        TerrainChunk chunk = build(startX, startY, size);
+        synchronized (lru) { lru.put(key, chunk); }
         return chunk;
     }
-}
\ No newline at end of file
+
+    public CacheStats getCacheStats() {
+        synchronized (lru) {
+            return new CacheStats(precomputed.size(), lru.size(), hits.get(), misses.get());
+        }
+    }
+
+    private TerrainChunk build(int startX, int startY, int size) {
+        byte[] tiles = new byte[size * size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                tiles[y * size + x] = (byte) terrain.getTerrain(startX + x, startY + y);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(tiles);
+        String etag = "\"t" + size + "-" + Long.toHexString(crc.getValue()) + "\"";
+        return new TerrainChunk(startX, startY, size, tiles, toJson(tiles, size), etag);
+    }
+
+    private static byte[] toJson(byte[] tiles, int size) {
+        StringBuilder json = new StringBuilder(tiles.length * 3 + size * 2 + 2).append('[');
+        for (int row = 0; row < size; row++) {
+            if (row > 0) json.append(',');
+            json.append('[');
+            for (int col = 0; col < size; col++) {
+                if (col > 0) json.append(',');
+                json.append(tiles[row * size + col]);
+            }
+            json.append(']');
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,38 @@
+package com.archemidia.util;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive {@code int}s, for handle lists that would otherwise box every element.
+ * Not thread-safe.
+ */
+public class IntList {
+    private int[] items;
+    private int size;
+
+    public IntList() {
+        this(16);
+    }
+
+    public IntList(int capacity) {
+        this.items = new int[Math.max(4, capacity)];
+    }
+
+    public void add(int value) {
+        if (size == items.length) items = Arrays.copyOf(items, size * 2);
+        items[size++] = value;
+    }
+
+    public int get(int index) {
+        if (index >= size) throw new IndexOutOfBoundsException(index);
+        return items[index];
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public void clear() { size = 0; }
+
+    public void sort() {
+        Arrays.sort(items, 0, size);
+    }
+}
@@ -1,5 +1,6 @@
 package com.archemidia.util;
 
+import java.util.Arrays;
 import java.util.Random;
 
 public class PerlinNoise {
@@ -41,14 +42,155 @@ public class PerlinNoise {
         z -= Math.floor(z);
         double u = fade(x), v = fade(y), w = fade(z);
         int A = p[X]+Y, AA = p[A]+Z, AB = p[A+1]+Z, B = p[X+1]+Y, BA = p[B]+Z, BB = p[B+1]+Z;
+        // + 0.0 turns an exact -0.0 into 0.0, so the 2D path below (which reaches exact zeros with
+        // other signs) returns the same bits; every other value is unchanged
         return lerp(w, lerp(v, lerp(u, grad(p[AA], x, y, z),  grad(p[BA], x-1, y, z)),
                         lerp(u, grad(p[AB], x, y-1, z),  grad(p[BB], x-1, y-1, z))),
                 lerp(v, lerp(u, grad(p[AA+1], x, y, z-1),  grad(p[BA+1], x-1, y, z-1)),
-                        lerp(u, grad(p[AB+1], x, y-1, z-1),  grad(p[BB+1], x-1, y-1, z-1))));
+                        lerp(u, grad(p[AB+1], x, y-1, z-1),  grad(p[BB+1], x-1, y-1, z-1)))) + 0.0;
     }
 
-    private double fade(double t) { return t * t * t * (t * (t * 6 - 15) + 10); }
-    private double lerp(double t, double a, double b) { return a + t * (b - a); }
+    // --- 2D ---
+    // Callers sample the z = 0 slice only. With z = 0 the outer lerp collapses onto its first
+    // half and grad() becomes cx * x + cy * y, so the 2D path drops half the lattice corners and
+    // every branch while returning exactly what noise(x, y, 0) returns.
+
+    // grad(h, x, y, 0) == GRAD_X[h] * x + GRAD_Y[h] * y
+    private static final double[] GRAD_X = new double[16];
+    private static final double[] GRAD_Y = new double[16];
+    static {
+        for (int h = 0; h < 16; h++) {
+            double su = (h & 1) == 0 ? 1 : -1, sv = (h & 2) == 0 ? 1 : -1;
+            if (h < 8) GRAD_X[h] += su; else GRAD_Y[h] += su;
+            if (h < 4) GRAD_Y[h] += sv; else if (h == 12 || h == 14) GRAD_X[h] += sv;
+        }
+    }
+
+    /** Same value as {@code noise(x, y, 0)}. */
+    public double noise2(double x, double y) {
+        int yi = fastFloor(y);
+        double yf = y - yi;
+        return sample2(x, yi & 255, yf, fade(yf));
+    }
+
+    /**
+     * Fractal (fBm) noise: {@code octaves} layers of {@link #noise2}, each {@code lacunarity} times
+     * the frequency and {@code persistence} times the amplitude of the one before, normalized to
+     * the single-octave range.
+     */
+    public double fractal2(double x, double y, int octaves, double persistence, double lacunarity) {
+        double sum = 0, amp = 1, scale = 1, total = 0;
+        for (int o = 0; o < octaves; o++) {
+            sum += amp * noise2(x * scale, y * scale);
+            total += amp;
+            amp *= persistence;
+            scale *= lacunarity;
+        }
+        return total == 0 ? 0 : sum / total;
+    }
+
+    // --- Bulk ---
+    // Rows of a tile grid: sample i sits at ((x0 + i) * frequency, y), the same expression
+    // per-tile callers write, so bulk and scalar results match bit for bit. The row's y lattice
+    // terms are computed once; the loops are plain counted loops over the output array.
+
+    /** {@code out[off + i] = noise2((x0 + i) * frequency, y)} for i in [0, n). */
+    public void fillRow(double[] out, int off, int n, int x0, double frequency, double y) {
+        Arrays.fill(out, off, off + n, 0);
+        addRow(out, off, n, x0, frequency, 1, y, 1);
+    }
+
+    public void fillRow(float[] out, int off, int n, int x0, double frequency, double y) {
+        Arrays.fill(out, off, off + n, 0);
+        addRow(out, off, n, x0, frequency, 1, y, 1);
+    }
+
+    /** {@link #fillRow} with {@link #fractal2} instead of {@link #noise2}. */
+    public void fillRowFractal(double[] out, int off, int n, int x0, double frequency, double y,
+                               int octaves, double persistence, double lacunarity) {
+        Arrays.fill(out, off, off + n, 0);
+        double amp = 1, scale = 1, total = 0;
+        for (int o = 0; o < octaves; o++) {
+            addRow(out, off, n, x0, frequency, scale, y * scale, amp);
+            total += amp;
+            amp *= persistence;
+            scale *= lacunarity;
+        }
+        if (total != 0 && total != 1) {
+            for (int i = off; i < off + n; i++) out[i] /= total;
+        }
+    }
+
+    /**
+     * Float output of {@link #fillRowFractal}. Octaves are summed in the caller's {@code scratch}
+     * (at least n long) so the result is the double path rounded once, without allocating.
+     */
+    public void fillRowFractal(float[] out, int off, int n, int x0, double frequency, double y,
+                               int octaves, double persistence, double lacunarity, double[] scratch) {
+        fillRowFractal(scratch, 0, n, x0, frequency, y, octaves, persistence, lacunarity);
+        for (int i = 0; i < n; i++) out[off + i] = (float) scratch[i];
+    }
+
+    /**
+     * Row-major w x h block of tiles starting at (x0, y0), both axes scaled by {@code frequency}:
+     * {@code out[j * w + i] = fractal2((x0 + i) * frequency, (y0 + j) * frequency, ...)}.
+     * One octave is plain {@link #noise2}.
+     */
+    public void fillRect(double[] out, int x0, int y0, int w, int h, double frequency,
+                         int octaves, double persistence, double lacunarity) {
+        for (int j = 0; j < h; j++) fillRowFractal(out, j * w, w, x0, frequency, (y0 + j) * frequency, octaves, persistence, lacunarity);
+    }
+
+    /** Float output of {@link #fillRect}, one row at a time through {@code scratch} (at least w long). */
+    public void fillRect(float[] out, int x0, int y0, int w, int h, double frequency,
+                         int octaves, double persistence, double lacunarity, double[] scratch) {
+        for (int j = 0; j < h; j++) {
+            fillRowFractal(out, j * w, w, x0, frequency, (y0 + j) * frequency, octaves, persistence, lacunarity, scratch);
+        }
+    }
+
+    // out[off + i] += amp * noise2((x0 + i) * frequency * scale, y)
+    private void addRow(double[] out, int off, int n, int x0, double frequency, double scale, double y, double amp) {
+        int yi = fastFloor(y);
+        double yf = y - yi, v = fade(yf);
+        int Y = yi & 255;
+        for (int i = 0; i < n; i++) {
+            out[off + i] += amp * sample2((x0 + i) * frequency * scale, Y, yf, v);
+        }
+    }
+
+    private void addRow(float[] out, int off, int n, int x0, double frequency, double scale, double y, double amp) {
+        int yi = fastFloor(y);
+        double yf = y - yi, v = fade(yf);
+        int Y = yi & 255;
+        for (int i = 0; i < n; i++) {
+            out[off + i] += (float) (amp * sample2((x0 + i) * frequency * scale, Y, yf, v));
+        }
+    }
+
+    // One 2D sample given the row's lattice terms; branch-free apart from the floor
+    private double sample2(double x, int Y, double yf, double v) {
+        int xi = fastFloor(x);
+        double xf = x - xi, u = fade(xf);
+        int X = xi & 255;
+        int A = p[X] + Y, B = p[X + 1] + Y;
+        int hAA = p[p[A]] & 15, hBA = p[p[B]] & 15, hAB = p[p[A + 1]] & 15, hBB = p[p[B + 1]] & 15;
+        double xf1 = xf - 1, yf1 = yf - 1;
+        double aa = GRAD_X[hAA] * xf + GRAD_Y[hAA] * yf;
+        double ba = GRAD_X[hBA] * xf1 + GRAD_Y[hBA] * yf;
+        double ab = GRAD_X[hAB] * xf + GRAD_Y[hAB] * yf1;
+        double bb = GRAD_X[hBB] * xf1 + GRAD_Y[hBB] * yf1;
+        return lerp(v, lerp(u, aa, ba), lerp(u, ab, bb)) + 0.0; // Signed zero, see noise()
+    }
+
+    // (int) Math.floor(x) for the coordinate range noise is sampled at
+    private static int fastFloor(double x) {
+        int i = (int) x;
+        return x < i ? i - 1 : i;
+    }
+
+    private static double fade(double t) { return t * t * t * (t * (t * 6 - 15) + 10); }
+    private static double lerp(double t, double a, double b) { return a + t * (b - a); }
     private double grad(int hash, double x, double y, double z) {
         int h = hash & 15;
         double u = h<8 ? x : y, v = h<4 ? y : h==12||h==14 ? x : z;
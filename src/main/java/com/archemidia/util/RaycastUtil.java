@@ -1,47 +1,78 @@
 package com.archemidia.util;
 
-import com.archemidia.model.WorldObject;
-import java.util.Map;
+import com.archemidia.model.CollisionMap;
 
+/**
+ * Line of sight over the opacity bits of a {@link CollisionMap}.
+ * Walks exactly the tiles the segment crosses (Amanatides-Woo grid traversal), so no corner is
+ * skipped and no tile is probed twice. Pure arithmetic on primitives: nothing is allocated,
+ * which keeps it usable on the AI hot path.
+ */
 public class RaycastUtil {
+    private static final double TILE_SIZE = 64.0;
 
     /**
-     * Checks if there is a clear Line of Sight (LOS) between (x1, y1) and (x2, y2).
-     * Returns true if clear, false if blocked by an object.
+     * Checks if there is a clear Line of Sight (LOS) between pixel positions (x1, y1) and (x2, y2).
+     * The viewer's and the target's own tiles never block. Exactly through a tile corner, sight
+     * only passes if at least one of the two tiles beside the corner is clear.
      */
-    public static boolean hasLineOfSight(double x1, double y1, double x2, double y2, Map<String, WorldObject> activeObjects) {
-        double distance = Math.sqrt(Math.pow(x2 - x1, 2) + Math.pow(y2 - y1, 2));
-
-        // 1. Normalized Direction Vector
-        double dx = (x2 - x1) / distance;
-        double dy = (y2 - y1) / distance;
+    public static boolean hasLineOfSight(CollisionMap map, double x1, double y1, double x2, double y2) {
+        return hasLineOfSight(map, x1, y1, x2, y2, Double.POSITIVE_INFINITY);
+    }
 
-        // 2. Step size (Check every 32 pixels - half a tile)
-        // Smaller steps = more accurate but slower. 32 is a good balance.
-        int steps = (int) (distance / 32.0);
+    /** Like {@link #hasLineOfSight(CollisionMap, double, double, double, double)}, but false past {@code maxDistance} px. */
+    public static boolean hasLineOfSight(CollisionMap map, double x1, double y1, double x2, double y2, double maxDistance) {
+        double dx = x2 - x1, dy = y2 - y1;
+        if (dx * dx + dy * dy > maxDistance * maxDistance) return false;
 
-        double currentX = x1;
-        double currentY = y1;
+        int tx = (int) Math.floor(x1 / TILE_SIZE), ty = (int) Math.floor(y1 / TILE_SIZE);
+        int endX = (int) Math.floor(x2 / TILE_SIZE), endY = (int) Math.floor(y2 / TILE_SIZE);
+        int stepX = dx > 0 ? 1 : (dx < 0 ? -1 : 0);
+        int stepY = dy > 0 ? 1 : (dy < 0 ? -1 : 0);
 
-        for (int i = 0; i < steps; i++) {
-            currentX += dx * 32.0;
-            currentY += dy * 32.0;
+        // Segment parameter t in [0, 1] at the next vertical / horizontal tile boundary, and per tile
+        double tMaxX = stepX > 0 ? ((tx + 1) * TILE_SIZE - x1) / dx : stepX < 0 ? (tx * TILE_SIZE - x1) / dx : Double.POSITIVE_INFINITY;
+        double tMaxY = stepY > 0 ? ((ty + 1) * TILE_SIZE - y1) / dy : stepY < 0 ? (ty * TILE_SIZE - y1) / dy : Double.POSITIVE_INFINITY;
+        double tDeltaX = stepX != 0 ? TILE_SIZE / Math.abs(dx) : Double.POSITIVE_INFINITY;
+        double tDeltaY = stepY != 0 ? TILE_SIZE / Math.abs(dy) : Double.POSITIVE_INFINITY;
 
-            if (isTileBlocked(currentX, currentY, activeObjects)) {
-                return false; // Vision Blocked
+        // Tiles left to cross; bounds the walk even if rounding drifts past the end tile
+        int remaining = Math.abs(endX - tx) + Math.abs(endY - ty);
+        while (remaining > 0) {
+            if (tMaxX < tMaxY) {
+                tx += stepX;
+                tMaxX += tDeltaX;
+                remaining--;
+            } else if (tMaxY < tMaxX) {
+                ty += stepY;
+                tMaxY += tDeltaY;
+                remaining--;
+            } else {
+                if (map.isOpaque(tx + stepX, ty) && map.isOpaque(tx, ty + stepY)) return false;
+                tx += stepX;
+                ty += stepY;
+                tMaxX += tDeltaX;
+                tMaxY += tDeltaY;
+                remaining -= 2;
             }
+            if (remaining <= 0) break; // The target's tile
+            if (map.isOpaque(tx, ty)) return false;
         }
-
-        return true; // No obstacles found
+        return true;
     }
 
-    private static boolean isTileBlocked(double x, double y, Map<String, WorldObject> activeObjects) {
-        int tx = (int) (x / 64.0);
-        int ty = (int) (y / 64.0);
-
-        // Check if an object exists at this tile
-        // Note: This assumes ALL objects block sight.
-        // If you have 'Grass' objects in activeObjects, you might need to check obj.type != "Grass"
-        return activeObjects.containsKey(tx + "_" + ty);
+    /**
+     * One viewer against {@code count} targets: {@code visible[i]} is set to whether target i
+     * (at {@code targetX[i]}, {@code targetY[i]}) is within {@code maxDistance} px and in sight.
+     * Returns the number of visible targets.
+     */
+    public static int lineOfSight(CollisionMap map, double viewerX, double viewerY,
+                                  double[] targetX, double[] targetY, int count, double maxDistance, boolean[] visible) {
+        int seen = 0;
+        for (int i = 0; i < count; i++) {
+            visible[i] = hasLineOfSight(map, viewerX, viewerY, targetX[i], targetY[i], maxDistance);
+            if (visible[i]) seen++;
+        }
+        return seen;
     }
-}
\ No newline at end of file
+}
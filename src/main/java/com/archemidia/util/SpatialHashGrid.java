@@ -0,0 +1,197 @@
+package com.archemidia.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A Spatial Hash Grid for optimizing range queries (finding things nearby).
+ * It divides the world into large cells (buckets) keyed by packed cell coordinates.
+ * Entities are tracked by identity, so moving one only touches the grid when it
+ * crosses a cell boundary. Queries write into a caller-supplied collection.
+ */
+public class SpatialHashGrid<T> {
+    private final int cellSize;
+    private final LongObjectMap<Cell<T>> cells = new LongObjectMap<>(256);
+    private final Map<T, Entry<T>> entries = new IdentityHashMap<>();
+
+    private static final class Entry<T> {
+        final T value;
+        double x, y;
+        long cell;
+        int slot;
+
+        Entry(T value) { this.value = value; }
+    }
+
+    private static final class Cell<T> {
+        @SuppressWarnings("unchecked")
+        Entry<T>[] items = (Entry<T>[]) new Entry<?>[4];
+        int size;
+
+        void add(Entry<T> e) {
+            if (size == items.length) items = Arrays.copyOf(items, size * 2);
+            e.slot = size;
+            items[size++] = e;
+        }
+
+        // Swap-remove: O(1), order inside a cell does not matter
+        void remove(Entry<T> e) {
+            Entry<T> last = items[--size];
+            items[e.slot] = last;
+            last.slot = e.slot;
+            items[size] = null;
+        }
+    }
+
+    public SpatialHashGrid(int cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    public int getCellSize() { return cellSize; }
+
+    private int cellCoord(double v) {
+        return (int) Math.floor(v / cellSize);
+    }
+
+    private long cellKey(double x, double y) {
+        return TileKey.pack(cellCoord(x), cellCoord(y));
+    }
+
+    private Cell<T> cellFor(long key) {
+        Cell<T> cell = cells.get(key);
+        if (cell == null) {
+            cell = new Cell<>();
+            cells.put(key, cell);
+        }
+        return cell;
+    }
+
+    /** Registers the entity at (x, y), or moves it there if it is already tracked. */
+    public synchronized void insert(T value, double x, double y) {
+        Entry<T> e = entries.get(value);
+        if (e != null) {
+            move(e, x, y);
+            return;
+        }
+        e = new Entry<>(value);
+        e.x = x;
+        e.y = y;
+        e.cell = cellKey(x, y);
+        cellFor(e.cell).add(e);
+        entries.put(value, e);
+    }
+
+    public synchronized void update(T value, double x, double y) {
+        Entry<T> e = entries.get(value);
+        if (e != null) move(e, x, y);
+    }
+
+    private void move(Entry<T> e, double x, double y) {
+        e.x = x;
+        e.y = y;
+        long key = cellKey(x, y);
+        if (key != e.cell) {
+            cells.get(e.cell).remove(e);
+            e.cell = key;
+            cellFor(key).add(e);
+        }
+    }
+
+    public synchronized void remove(T value) {
+        Entry<T> e = entries.remove(value);
+        if (e != null) cells.get(e.cell).remove(e);
+    }
+
+    public synchronized boolean contains(T value) {
+        return entries.containsKey(value);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Adds every entity within {@code radius} of (x, y) to {@code out}.
+     * Returns the number of entities added.
+     */
+    public synchronized int queryRadius(double x, double y, double radius, Collection<? super T> out) {
+        double r2 = radius * radius;
+        int added = 0;
+        int minCx = cellCoord(x - radius), maxCx = cellCoord(x + radius);
+        int minCy = cellCoord(y - radius), maxCy = cellCoord(y + radius);
+        for (int cx = minCx; cx <= maxCx; cx++) {
+            for (int cy = minCy; cy <= maxCy; cy++) {
+                Cell<T> cell = cells.get(TileKey.pack(cx, cy));
+                if (cell == null) continue;
+                for (int i = 0; i < cell.size; i++) {
+                    Entry<T> e = cell.items[i];
+                    double dx = e.x - x, dy = e.y - y;
+                    if (dx * dx + dy * dy <= r2) {
+                        out.add(e.value);
+                        added++;
+                    }
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Adds every entity inside the axis-aligned box [minX, maxX] x [minY, maxY] to {@code out}.
+     * Returns the number of entities added.
+     */
+    public synchronized int queryRect(double minX, double minY, double maxX, double maxY, Collection<? super T> out) {
+        int added = 0;
+        int minCx = cellCoord(minX), maxCx = cellCoord(maxX);
+        int minCy = cellCoord(minY), maxCy = cellCoord(maxY);
+        for (int cx = minCx; cx <= maxCx; cx++) {
+            for (int cy = minCy; cy <= maxCy; cy++) {
+                Cell<T> cell = cells.get(TileKey.pack(cx, cy));
+                if (cell == null) continue;
+                for (int i = 0; i < cell.size; i++) {
+                    Entry<T> e = cell.items[i];
+                    if (e.x >= minX && e.x <= maxX && e.y >= minY && e.y <= maxY) {
+                        out.add(e.value);
+                        added++;
+                    }
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Closest entity strictly within {@code maxDist} of (x, y), skipping {@code exclude}.
+     * Returns null when nothing qualifies.
+     */
+    public synchronized T nearest(double x, double y, double maxDist, T exclude) {
+        double best = maxDist * maxDist;
+        T found = null;
+        int minCx = cellCoord(x - maxDist), maxCx = cellCoord(x + maxDist);
+        int minCy = cellCoord(y - maxDist), maxCy = cellCoord(y + maxDist);
+        for (int cx = minCx; cx <= maxCx; cx++) {
+            for (int cy = minCy; cy <= maxCy; cy++) {
+                Cell<T> cell = cells.get(TileKey.pack(cx, cy));
+                if (cell == null) continue;
+                for (int i = 0; i < cell.size; i++) {
+                    Entry<T> e = cell.items[i];
+                    if (e.value == exclude) continue;
+                    double dx = e.x - x, dy = e.y - y;
+                    double d2 = dx * dx + dy * dy;
+                    if (d2 < best) {
+                        best = d2;
+                        found = e.value;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    public synchronized void clear() {
+        cells.clear();
+        entries.clear();
+    }
+}
@@ -0,0 +1,27 @@
+package com.archemidia.util;
+
+/**
+ * Packs a pair of signed tile coordinates into a single {@code long}.
+ * Replaces the old {@code x + "_" + y} String keys on hot lookup paths.
+ */
+public final class TileKey {
+
+    private TileKey() {}
+
+    public static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    public static int unpackX(long key) {
+        return (int) (key >> 32);
+    }
+
+    public static int unpackY(long key) {
+        return (int) key;
+    }
+
+    // Legacy String form, still used by the save file and the wire protocol
+    public static String toLegacyKey(int x, int y) {
+        return x + "_" + y;
+    }
+}
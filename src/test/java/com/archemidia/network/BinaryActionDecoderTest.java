@@ -0,0 +1,56 @@
+package com.archemidia.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryActionDecoderTest {
+
+    private final BinaryActionDecoder decoder = new BinaryActionDecoder();
+    private final RecordingHandler handler = new RecordingHandler();
+
+    private void decode(ByteWriter frame) {
+        decoder.decode(ByteBuffer.wrap(frame.toByteArray()), null, handler);
+    }
+
+    private static ByteWriter frame(ClientAction action) {
+        return new ByteWriter().writeByte(action.ordinal());
+    }
+
+    @Test
+    void decodesDictionaryAndInlineNames() {
+        decode(frame(ClientAction.CRAFT_ITEM).writeName("Fence"));
+        decode(frame(ClientAction.COLLECT_ITEM).writeName("Not In The Table"));
+        decode(frame(ClientAction.PLACE_OBJECT).writeName("Bonfire").writeSignedVarInt(-3).writeSignedVarInt(7));
+        assertEquals(List.of("craft Fence", "collect Not In The Table", "place Bonfire -3 7"), handler.calls);
+    }
+
+    @Test
+    void rejectsUnknownNameIndex() {
+        for (ClientAction action : new ClientAction[]{ClientAction.COLLECT_ITEM, ClientAction.CRAFT_ITEM,
+                ClientAction.DROP_ITEM, ClientAction.REMOVE_ITEM, ClientAction.PLACE_OBJECT}) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> decode(frame(action).writeVarInt(10_000).writeVarInt(1).writeVarInt(1)));
+            assertTrue(e.getMessage().contains("10000"), e.getMessage());
+        }
+        assertTrue(handler.calls.isEmpty());
+    }
+
+    @Test
+    void rejectsUnknownAction() {
+        assertThrows(IllegalArgumentException.class, () -> decode(new ByteWriter().writeByte(200)));
+        assertTrue(handler.calls.isEmpty());
+    }
+
+    @Test
+    void decodesMoveAtProtocolScale() {
+        int scale = BinaryProtocolCodec.POSITION_SCALE;
+        decode(frame(ClientAction.REQUEST_MOVE).writeSignedVarInt(-5 * scale).writeSignedVarInt(12 * scale).writeVarLong(42));
+        assertEquals(List.of("move -5.0 12.0 42"), handler.calls);
+    }
+}
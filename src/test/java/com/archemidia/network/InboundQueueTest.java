@@ -0,0 +1,45 @@
+package com.archemidia.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InboundQueueTest {
+
+    private final RecordingHandler handler = new RecordingHandler();
+    private final InboundQueue queue = new InboundQueue(handler, 100);
+    private final ClientConnection conn = new ClientConnection(null, null, null);
+
+    @Test
+    void consecutiveMovesCoalesce() {
+        queue.onMove(conn, 1, 1, 1);
+        queue.onMove(conn, 2, 2, 2);
+        queue.onMove(conn, 3, 3, 3);
+        queue.drain();
+        assertEquals(List.of("move 3.0 3.0 3"), handler.calls);
+        assertEquals(2, queue.getStats().coalescedMoves());
+    }
+
+    @Test
+    void moveAfterAnotherActionDoesNotOvertakeIt() {
+        queue.onMove(conn, 1, 1, 1);
+        queue.onInteract(conn, 5, 6);
+        queue.onMove(conn, 2, 2, 2);
+        queue.onMove(conn, 3, 3, 3);
+        queue.drain();
+        assertEquals(List.of("move 1.0 1.0 1", "interact 5 6", "move 3.0 3.0 3"), handler.calls);
+        assertEquals(1, queue.getStats().coalescedMoves());
+    }
+
+    @Test
+    void moveAfterApplyIsQueuedAgain() {
+        queue.onMove(conn, 1, 1, 1);
+        queue.drain();
+        queue.onMove(conn, 2, 2, 2);
+        queue.drain();
+        assertEquals(List.of("move 1.0 1.0 1", "move 2.0 2.0 2"), handler.calls);
+        assertEquals(0, queue.getStats().coalescedMoves());
+    }
+}
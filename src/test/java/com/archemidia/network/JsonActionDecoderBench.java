@@ -0,0 +1,61 @@
+package com.archemidia.network;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Timing harness, not a test: streaming {@link JsonActionDecoder} against the previous
+ * readTree decoder on request_move frames. Run its main method from the test classpath;
+ * numbers are only comparable on the same machine and JVM.
+ */
+public class JsonActionDecoderBench {
+
+    private static final int FRAMES = 1_000_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonActionDecoder streaming = new JsonActionDecoder(mapper);
+        Sink sink = new Sink();
+        String[] frames = new String[1024];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = "{\"action\":\"request_move\",\"x\":" + (i * 3.5) + ",\"y\":" + (-i * 1.25) + ",\"seqId\":" + i + "}";
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < FRAMES; i++) decodeTree(mapper, frames[i & 1023], sink);
+            long t1 = System.nanoTime();
+            for (int i = 0; i < FRAMES; i++) streaming.decode(frames[i & 1023], null, sink);
+            long t2 = System.nanoTime();
+            System.out.printf("round %d: readTree %.0f ns/frame, streaming %.0f ns/frame (%d)%n",
+                    round, (t1 - t0) / (double) FRAMES, (t2 - t1) / (double) FRAMES, sink.checksum);
+        }
+    }
+
+    // The decoder as it was before the streaming parser, for comparison
+    private static void decodeTree(ObjectMapper mapper, String payload, ClientActionHandler handler) throws Exception {
+        JsonNode json = mapper.readTree(payload);
+        ClientAction action = ClientAction.fromWireName(json.get("action").asText());
+        if (action == ClientAction.REQUEST_MOVE) {
+            handler.onMove(null, json.get("x").asDouble(), json.get("y").asDouble(), json.get("seqId").asLong());
+        }
+    }
+
+    // Consumes the decoded values so the JIT cannot drop the work
+    private static final class Sink implements ClientActionHandler {
+        long checksum;
+
+        @Override public void onMove(ClientConnection conn, double x, double y, long seqId) { checksum += seqId + (long) x + (long) y; }
+        @Override public void onCollectItem(ClientConnection conn, String item) {}
+        @Override public void onRemoveItem(ClientConnection conn, String item, int amount) {}
+        @Override public void onDropItem(ClientConnection conn, String item) {}
+        @Override public void onCraftItem(ClientConnection conn, String recipe) {}
+        @Override public void onPlaceObject(ClientConnection conn, String type, int x, int y) {}
+        @Override public void onPickupObject(ClientConnection conn, int x, int y) {}
+        @Override public void onInteract(ClientConnection conn, int x, int y) {}
+        @Override public void onAckSnapshot(ClientConnection conn, long tick) {}
+        @Override public void onRequestKeyframe(ClientConnection conn) {}
+        @Override public void onChunkHashes(ClientConnection conn, int[] chunks) {}
+    }
+}
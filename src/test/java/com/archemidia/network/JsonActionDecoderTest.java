@@ -0,0 +1,66 @@
+package com.archemidia.network;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonActionDecoderTest {
+
+    private final JsonActionDecoder decoder = new JsonActionDecoder(new ObjectMapper());
+    private final RecordingHandler handler = new RecordingHandler();
+
+    @Test
+    void fieldsMayComeInAnyOrder() throws Exception {
+        decoder.decode("{\"seqId\":7,\"y\":-2.5,\"action\":\"request_move\",\"x\":1.25}", null, handler);
+        assertEquals(List.of("move 1.25 -2.5 7"), handler.calls);
+    }
+
+    @Test
+    void unknownFieldsAreSkipped() throws Exception {
+        decoder.decode("{\"action\":\"place_object\",\"meta\":{\"a\":[1,{\"b\":2}]},\"tags\":[\"x\",\"y\"],"
+                + "\"type\":\"Fence\",\"note\":null,\"x\":3,\"y\":-4}", null, handler);
+        assertEquals(List.of("place Fence 3 -4"), handler.calls);
+    }
+
+    @Test
+    void unknownOrMissingActionsAreIgnored() throws Exception {
+        decoder.decode("{\"action\":\"dance\",\"x\":1,\"y\":2}", null, handler);
+        decoder.decode("{\"x\":1,\"y\":2,\"seqId\":3}", null, handler);
+        decoder.decode("{\"action\":42}", null, handler);
+        assertTrue(handler.calls.isEmpty());
+    }
+
+    @Test
+    void missingRequiredFieldIsRejected() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> decoder.decode("{\"action\":\"request_move\",\"x\":1,\"y\":2}", null, handler));
+        assertTrue(e.getMessage().contains("request_move"));
+        assertThrows(IllegalArgumentException.class, () -> decoder.decode("{\"action\":\"craft_item\"}", null, handler));
+        assertTrue(handler.calls.isEmpty());
+    }
+
+    @Test
+    void optionalAmountDefaultsToOne() throws Exception {
+        decoder.decode("{\"action\":\"remove_item\",\"item\":\"Wood\"}", null, handler);
+        decoder.decode("{\"amount\":5,\"action\":\"remove_item\",\"item\":\"Wood\"}", null, handler);
+        assertEquals(List.of("remove Wood 1", "remove Wood 5"), handler.calls);
+    }
+
+    @Test
+    void chunkHashesAreFlattened() throws Exception {
+        decoder.decode("{\"action\":\"chunk_hashes\",\"chunks\":[[1,-2,99],[0,0,-7]]}", null, handler);
+        assertEquals(List.of("chunks"), handler.calls);
+        assertArrayEquals(new int[]{1, -2, 99, 0, 0, -7}, handler.chunks);
+    }
+
+    @Test
+    void nonObjectFramesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> decoder.decode("[1,2]", null, handler));
+    }
+}
@@ -0,0 +1,22 @@
+package com.archemidia.network;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Records every decoded action as a short line, for the decoder tests
+class RecordingHandler implements ClientActionHandler {
+    final List<String> calls = new ArrayList<>();
+    int[] chunks;
+
+    @Override public void onMove(ClientConnection conn, double x, double y, long seqId) { calls.add("move " + x + " " + y + " " + seqId); }
+    @Override public void onCollectItem(ClientConnection conn, String item) { calls.add("collect " + item); }
+    @Override public void onRemoveItem(ClientConnection conn, String item, int amount) { calls.add("remove " + item + " " + amount); }
+    @Override public void onDropItem(ClientConnection conn, String item) { calls.add("drop " + item); }
+    @Override public void onCraftItem(ClientConnection conn, String recipe) { calls.add("craft " + recipe); }
+    @Override public void onPlaceObject(ClientConnection conn, String type, int x, int y) { calls.add("place " + type + " " + x + " " + y); }
+    @Override public void onPickupObject(ClientConnection conn, int x, int y) { calls.add("pickup " + x + " " + y); }
+    @Override public void onInteract(ClientConnection conn, int x, int y) { calls.add("interact " + x + " " + y); }
+    @Override public void onAckSnapshot(ClientConnection conn, long tick) { calls.add("ack " + tick); }
+    @Override public void onRequestKeyframe(ClientConnection conn) { calls.add("keyframe"); }
+    @Override public void onChunkHashes(ClientConnection conn, int[] chunks) { calls.add("chunks"); this.chunks = chunks; }
+}
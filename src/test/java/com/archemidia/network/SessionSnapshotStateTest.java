@@ -0,0 +1,61 @@
+package com.archemidia.network;
+
+import com.archemidia.model.Monster;
+import com.archemidia.util.LongObjectMap;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionSnapshotStateTest {
+
+    private final SessionSnapshotState state = new SessionSnapshotState();
+
+    private static MonsterSnapshot monster(int netId, int x) {
+        return new MonsterSnapshot("m" + netId, netId, x, 0, 10, Monster.State.IDLE);
+    }
+
+    private SnapshotDelta send(long tick, MonsterSnapshot... visible) {
+        LongObjectMap<MonsterSnapshot> map = state.newVisibleMap();
+        for (MonsterSnapshot m : visible) map.put(m.netId(), m);
+        return state.next(tick, 0, 0, 100, 100, 0, map, 1000);
+    }
+
+    @Test
+    void diffsAgainstTheAcknowledgedFrame() {
+        MonsterSnapshot a = monster(1, 0), b = monster(2, 0);
+        assertTrue(send(1, a, b).isKeyframe());
+        state.acknowledge(1);
+
+        MonsterSnapshot movedA = monster(1, 5), c = monster(3, 0);
+        SnapshotDelta delta = send(2, movedA, c);
+        assertFalse(delta.isKeyframe());
+        assertEquals(1, delta.baselineTick);
+        assertEquals(2, delta.monsters.size());
+        for (SnapshotDelta.MonsterDelta md : delta.monsters) {
+            assertEquals(md.monster() == c ? MonsterSnapshot.ALL : MonsterSnapshot.X, md.mask());
+        }
+        assertEquals(1, delta.left.size());
+        assertEquals(2, delta.left.get(0).netId());
+    }
+
+    @Test
+    void recycledMapsDoNotDisturbTheBaseline() {
+        MonsterSnapshot a = monster(1, 0);
+        send(1, a);
+        state.acknowledge(1);
+        // Ticks 2..32 evict earlier frames and recycle their maps; the acknowledged frame survives until tick 33
+        for (long tick = 2; tick <= 32; tick++) {
+            SnapshotDelta delta = send(tick, a);
+            assertEquals(1, delta.baselineTick);
+            assertTrue(delta.monsters.isEmpty());
+            assertTrue(delta.left.isEmpty());
+        }
+        state.acknowledge(32);
+        SnapshotDelta delta = send(33, a, monster(2, 0));
+        assertEquals(32, delta.baselineTick);
+        assertEquals(1, delta.monsters.size());
+        assertEquals(2, delta.monsters.get(0).monster().netId());
+    }
+}
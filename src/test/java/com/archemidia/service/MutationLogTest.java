@@ -0,0 +1,153 @@
+package com.archemidia.service;
+
+import com.archemidia.model.PlayerState;
+import com.archemidia.model.WorldObject;
+import com.archemidia.model.WorldObjectIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MutationLogTest {
+
+    @TempDir
+    File dir;
+
+    private final ItemRegistry items = new ItemRegistry();
+
+    // Flushes only on close, so every test writes exactly one batch per segment
+    private MutationLog newLog() {
+        return new MutationLog(dir, false, 60_000);
+    }
+
+    private int replay(long fromSegment, WorldObjectIndex objects, Map<String, PlayerState> players,
+                       MutationLog.Coverage coverage) throws IOException {
+        MutationLog reader = newLog();
+        try {
+            return reader.replay(fromSegment, objects, players, items::getItem, coverage);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    void replaysAWrittenSegment() throws IOException {
+        MutationLog log = newLog();
+        log.open(0);
+        WorldObject fence = new WorldObject("Fence", 3, -4);
+        fence.id = "fence_1";
+        fence.hp = 2;
+        fence.maxHp = 2;
+        fence.ownerId = "p1";
+        log.placed(fence);
+        log.objectHp(3, -4, 1);
+        log.placed(new WorldObject("Bonfire", 5, 5));
+        log.removed(5, 5);
+        PlayerState joined = new PlayerState("p1", 10, 20);
+        log.playerJoined(joined);
+        log.itemAdded("p1", "Wood", 5);
+        log.itemRemoved("p1", "Wood", 2);
+        log.position("p1", 30, 40);
+        log.position("p1", 50, 60);
+        log.playerHp("p1", 80);
+        log.playerHp("p1", 70);
+        log.close();
+
+        WorldObjectIndex objects = new WorldObjectIndex();
+        Map<String, PlayerState> players = new HashMap<>();
+        // 7 plain records, then one coalesced position and one coalesced HP
+        assertEquals(9, replay(0, objects, players, MutationLog.Coverage.NONE));
+
+        WorldObject o = objects.get(3, -4);
+        assertNotNull(o);
+        assertEquals("Fence", o.type);
+        assertEquals("fence_1", o.id);
+        assertEquals("p1", o.ownerId);
+        assertEquals(1, o.hp);
+        assertNull(objects.get(5, 5));
+
+        PlayerState p = players.get("p1");
+        assertNotNull(p);
+        assertEquals(50.0, p.getX());
+        assertEquals(60.0, p.getY());
+        assertEquals(70, p.getHp());
+        assertEquals(Map.of("Wood", 3), p.getInventoryAsMap());
+    }
+
+    @Test
+    void dropsATornTail() throws IOException {
+        writeThreeRemovals();
+        File segment = new File(dir, "world_data.wal.0");
+        long full = segment.length();
+        // Cut the last record short, as a crash mid-write would
+        try (RandomAccessFile f = new RandomAccessFile(segment, "rw")) {
+            f.setLength(full - 3);
+        }
+        assertEquals(2, replay(0, new WorldObjectIndex(), new HashMap<>(), MutationLog.Coverage.NONE));
+    }
+
+    @Test
+    void dropsARecordWithABadChecksum() throws IOException {
+        writeThreeRemovals();
+        File segment = new File(dir, "world_data.wal.0");
+        byte[] bytes = Files.readAllBytes(segment.toPath());
+        bytes[bytes.length - 1] ^= 0x5A;
+        Files.write(segment.toPath(), bytes);
+        assertEquals(2, replay(0, new WorldObjectIndex(), new HashMap<>(), MutationLog.Coverage.NONE));
+    }
+
+    @Test
+    void replaysOnlySegmentsFromTheGivenOne() throws IOException {
+        MutationLog log = newLog();
+        log.open(0);
+        log.placed(new WorldObject("Fence", 1, 1));
+        assertEquals(1, log.rotate());
+        log.placed(new WorldObject("Fence", 2, 2));
+        log.close();
+        assertEquals(List.of(0L, 1L), log.listSegments());
+
+        WorldObjectIndex objects = new WorldObjectIndex();
+        assertEquals(1, replay(1, objects, new HashMap<>(), MutationLog.Coverage.NONE));
+        assertNull(objects.get(1, 1));
+        assertNotNull(objects.get(2, 2));
+    }
+
+    @Test
+    void skipsPlayerRecordsTheSnapshotCovers() throws IOException {
+        MutationLog log = newLog();
+        log.open(0);
+        log.itemAdded("p1", "Wood", 5);
+        log.playerHp("p1", 10);
+        log.close();
+
+        PlayerState p = new PlayerState("p1", 0, 0);
+        p.setHp(90);
+        Map<String, PlayerState> players = new HashMap<>(Map.of("p1", p));
+        MutationLog.Coverage covered = new MutationLog.Coverage() {
+            @Override public boolean coversObject(int x, int y, long segment) { return false; }
+            @Override public boolean coversPlayer(String playerId, long segment) { return true; }
+        };
+        replay(0, new WorldObjectIndex(), players, covered);
+        assertEquals(90, p.getHp());
+        assertEquals(Map.of(), p.getInventoryAsMap());
+    }
+
+    private void writeThreeRemovals() {
+        MutationLog log = newLog();
+        log.open(0);
+        log.removed(1, 1);
+        log.removed(2, 2);
+        log.removed(3, 3);
+        log.close();
+    }
+}
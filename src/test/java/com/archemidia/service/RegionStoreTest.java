@@ -0,0 +1,143 @@
+package com.archemidia.service;
+
+import com.archemidia.model.PlayerState;
+import com.archemidia.model.WorldObject;
+import com.archemidia.model.WorldObjectIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Drives the store and the log the way PersistenceService.checkpoint does, then loads and replays as at startup
+class RegionStoreTest {
+
+    @TempDir
+    File dir;
+
+    private final ItemRegistry items = new ItemRegistry();
+    private final WorldObjectIndex objects = new WorldObjectIndex();
+    private final Map<String, PlayerState> players = new HashMap<>();
+
+    private File worldDir() { return new File(dir, "world"); }
+    private File regionsDir() { return new File(worldDir(), "regions"); }
+
+    private void place(MutationLog log, RegionStore store, String type, int x, int y) {
+        WorldObject o = new WorldObject(type, x, y);
+        o.id = type + "_" + x + "_" + y;
+        objects.put(o);
+        log.placed(o);
+        store.markRegion(x, y);
+    }
+
+    private RegionStore.Checkpoint prepare(MutationLog log, RegionStore store) {
+        return store.prepare(objects, players, Map.of(), log.rotate());
+    }
+
+    // Commits like the writer task: segments are only deleted once the checkpoint is on disk
+    private void commit(MutationLog log, RegionStore store, RegionStore.Checkpoint cp, long segment) throws IOException {
+        assertTrue(store.write(cp, false, false));
+        log.submit(() -> log.deleteBefore(segment));
+    }
+
+    // Regions can no longer be written: the directory is moved aside and a plain file takes its place
+    private void breakRegionsDir() throws IOException {
+        Files.move(regionsDir().toPath(), new File(dir, "regions.aside").toPath());
+        Files.createFile(regionsDir().toPath());
+    }
+
+    private void repairRegionsDir() throws IOException {
+        Files.delete(regionsDir().toPath());
+        Files.move(new File(dir, "regions.aside").toPath(), regionsDir().toPath());
+    }
+
+    private WorldObjectIndex restart() throws IOException {
+        RegionStore store = new RegionStore(worldDir(), 32);
+        PersistenceService.SaveData data = store.load(items::getItem);
+        WorldObjectIndex loaded = new WorldObjectIndex();
+        loaded.applyChanges(data.objects.values(), data.removed);
+        MutationLog reader = new MutationLog(dir, false, 60_000);
+        try {
+            reader.replay(data.walSegment, loaded, data.players, items::getItem, store);
+        } finally {
+            reader.close();
+        }
+        return loaded;
+    }
+
+    @Test
+    void failedWriteKeepsItsRegionsForTheNextCheckpoint() throws IOException {
+        MutationLog log = new MutationLog(dir, false, 60_000);
+        RegionStore store = new RegionStore(worldDir(), 32);
+        log.open(0);
+        place(log, store, "Fence", 1, 1);
+        long first = log.rotate();
+        commit(log, store, store.prepare(objects, players, Map.of(), first), first);
+
+        place(log, store, "Bonfire", 100, 100);
+        RegionStore.Checkpoint failing = prepare(log, store);
+        breakRegionsDir();
+        assertThrows(IOException.class, () -> store.write(failing, false, false));
+        repairRegionsDir();
+
+        // Nothing else changed, so only the handed-back marks make this checkpoint rewrite the bonfire
+        long segment = log.rotate();
+        RegionStore.Checkpoint next = store.prepare(objects, players, Map.of(), segment);
+        assertEquals(1, next.getRegionCount());
+        commit(log, store, next, segment);
+        log.close();
+
+        WorldObjectIndex loaded = restart();
+        assertNotNull(loaded.get(1, 1));
+        assertNotNull(loaded.get(100, 100));
+    }
+
+    @Test
+    void checkpointPreparedBeforeAFailureIsNotCommitted() throws IOException {
+        MutationLog log = new MutationLog(dir, false, 60_000);
+        RegionStore store = new RegionStore(worldDir(), 32);
+        log.open(0);
+        place(log, store, "Fence", 1, 1);
+        long first = log.rotate();
+        commit(log, store, store.prepare(objects, players, Map.of(), first), first);
+
+        place(log, store, "Bonfire", 100, 100);
+        RegionStore.Checkpoint failing = prepare(log, store);
+        // Queued on the writer behind the failing one, but prepared before its marks came back
+        place(log, store, "Fence", -50, 7);
+        RegionStore.Checkpoint stale = prepare(log, store);
+        breakRegionsDir();
+        assertThrows(IOException.class, () -> store.write(failing, false, false));
+        repairRegionsDir();
+        assertFalse(store.write(stale, false, false));
+        log.close();
+
+        // Nothing after the first checkpoint was committed: the log still has both placements
+        assertEquals(2, log.listSegments().size());
+        WorldObjectIndex loaded = restart();
+        assertNotNull(loaded.get(100, 100));
+        assertNotNull(loaded.get(-50, 7));
+
+        MutationLog reopened = new MutationLog(dir, false, 60_000);
+        reopened.open(log.listSegments().get(1) + 1);
+        long segment = reopened.rotate();
+        RegionStore.Checkpoint next = store.prepare(objects, players, Map.of(), segment);
+        assertEquals(2, next.getRegionCount());
+        commit(reopened, store, next, segment);
+        reopened.close();
+
+        loaded = restart();
+        assertNotNull(loaded.get(1, 1));
+        assertNotNull(loaded.get(100, 100));
+        assertNotNull(loaded.get(-50, 7));
+    }
+}
@@ -0,0 +1,47 @@
+package com.archemidia.util;
+
+/**
+ * Timing harness, not a test: ns per sample of the scalar 3D path, {@link PerlinNoise#noise2},
+ * {@link PerlinNoise#fillRow} and a 4-octave {@link PerlinNoise#fillRowFractal}, over a
+ * 1024 x 1024 tile block at the terrain frequency. Run its main method from the test classpath;
+ * numbers are only comparable on the same machine and JVM.
+ */
+public class PerlinNoiseBench {
+
+    private static final int SIDE = 1024;
+    private static final double FREQUENCY = 0.05;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        PerlinNoise noise = new PerlinNoise(12345);
+        double[] row = new double[SIDE];
+        double sink = 0;
+        double samples = (double) SIDE * SIDE;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long t0 = System.nanoTime();
+            for (int y = 0; y < SIDE; y++) {
+                for (int i = 0; i < SIDE; i++) sink += noise.noise((i - SIDE / 2) * FREQUENCY, y * FREQUENCY, 0);
+            }
+            long t1 = System.nanoTime();
+            for (int y = 0; y < SIDE; y++) {
+                for (int i = 0; i < SIDE; i++) sink += noise.noise2((i - SIDE / 2) * FREQUENCY, y * FREQUENCY);
+            }
+            long t2 = System.nanoTime();
+            for (int y = 0; y < SIDE; y++) {
+                noise.fillRow(row, 0, SIDE, -SIDE / 2, FREQUENCY, y * FREQUENCY);
+                sink += row[y];
+            }
+            long t3 = System.nanoTime();
+            for (int y = 0; y < SIDE; y++) {
+                noise.fillRowFractal(row, 0, SIDE, -SIDE / 2, FREQUENCY, y * FREQUENCY, 4, 0.5, 2.0);
+                sink += row[y];
+            }
+            long t4 = System.nanoTime();
+            System.out.printf("round %d: noise(x, y, 0) %.1f ns, noise2 %.1f ns, fillRow %.1f ns, fillRowFractal(4) %.1f ns per sample%n",
+                    round, (t1 - t0) / samples, (t2 - t1) / samples, (t3 - t2) / samples, (t4 - t3) / samples);
+        }
+        // Keeps the JIT from dropping the loops
+        System.out.println("checksum " + sink);
+    }
+}
@@ -0,0 +1,99 @@
+package com.archemidia.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The 2D and bulk paths must reproduce the scalar 3D path exactly, not just closely:
+// terrain generated through either has to be the same map
+class PerlinNoiseTest {
+
+    private final PerlinNoise noise = new PerlinNoise(12345);
+    private final Random random = new Random(42);
+
+    @Test
+    void noise2MatchesNoiseAtZ0() {
+        for (int k = 0; k < 200_000; k++) {
+            double x = (random.nextDouble() - 0.5) * 4000;
+            double y = (random.nextDouble() - 0.5) * 4000;
+            assertEquals(noise.noise(x, y, 0), noise.noise2(x, y), "at " + x + ", " + y);
+        }
+        // Lattice points and cell edges, where the floor and fade terms are at their limits
+        for (int x = -300; x <= 300; x += 7) {
+            for (int y = -300; y <= 300; y += 11) {
+                assertEquals(noise.noise(x, y, 0), noise.noise2(x, y));
+                assertEquals(noise.noise(x - 1e-9, y + 1e-9, 0), noise.noise2(x - 1e-9, y + 1e-9));
+            }
+        }
+        for (double y : new double[]{-0.0, 0.0, -1.0, 0.5}) {
+            assertEquals(noise.noise(-0.0, y, 0), noise.noise2(-0.0, y), "at -0.0, " + y);
+        }
+    }
+
+    @Test
+    void fillRowMatchesNoise2() {
+        double[] row = new double[600];
+        float[] rowF = new float[600];
+        for (int k = 0; k < 200; k++) {
+            int x0 = random.nextInt(2000) - 1000;
+            double frequency = 0.001 + random.nextDouble() * 0.2;
+            double y = (random.nextDouble() - 0.5) * 500;
+            int off = random.nextInt(50), n = 1 + random.nextInt(row.length - off);
+            noise.fillRow(row, off, n, x0, frequency, y);
+            noise.fillRow(rowF, off, n, x0, frequency, y);
+            for (int i = 0; i < n; i++) {
+                double expected = noise.noise((x0 + i) * frequency, y, 0);
+                assertEquals(expected, row[off + i], "x0=" + x0 + " i=" + i);
+                assertEquals((float) expected, rowF[off + i], "x0=" + x0 + " i=" + i);
+            }
+        }
+    }
+
+    @Test
+    void fillRowFractalMatchesFractal2() {
+        double[] row = new double[300];
+        float[] rowF = new float[300];
+        double[] scratch = new double[300];
+        for (int k = 0; k < 200; k++) {
+            int x0 = random.nextInt(2000) - 1000;
+            double frequency = 0.001 + random.nextDouble() * 0.2;
+            double y = (random.nextDouble() - 0.5) * 500;
+            int octaves = random.nextInt(7);
+            double persistence = 0.3 + random.nextDouble() * 0.5, lacunarity = 1.5 + random.nextDouble();
+            noise.fillRowFractal(row, 0, row.length, x0, frequency, y, octaves, persistence, lacunarity);
+            noise.fillRowFractal(rowF, 0, rowF.length, x0, frequency, y, octaves, persistence, lacunarity, scratch);
+            for (int i = 0; i < row.length; i++) {
+                double expected = noise.fractal2((x0 + i) * frequency, y, octaves, persistence, lacunarity);
+                assertEquals(expected, row[i], "octaves=" + octaves + " i=" + i);
+                assertEquals((float) expected, rowF[i], "octaves=" + octaves + " i=" + i);
+            }
+        }
+    }
+
+    @Test
+    void oneOctaveIsPlainNoise2() {
+        for (int k = 0; k < 10_000; k++) {
+            double x = (random.nextDouble() - 0.5) * 1000, y = (random.nextDouble() - 0.5) * 1000;
+            assertEquals(noise.noise2(x, y), noise.fractal2(x, y, 1, 0.5, 2.0));
+        }
+    }
+
+    @Test
+    void fillRectMatchesFractal2() {
+        int w = 37, h = 23, x0 = -120, y0 = -7;
+        double frequency = 0.05;
+        double[] rect = new double[w * h];
+        float[] rectF = new float[w * h];
+        noise.fillRect(rect, x0, y0, w, h, frequency, 4, 0.5, 2.0);
+        noise.fillRect(rectF, x0, y0, w, h, frequency, 4, 0.5, 2.0, new double[w]);
+        for (int j = 0; j < h; j++) {
+            for (int i = 0; i < w; i++) {
+                double expected = noise.fractal2((x0 + i) * frequency, (y0 + j) * frequency, 4, 0.5, 2.0);
+                assertEquals(expected, rect[j * w + i]);
+                assertEquals((float) expected, rectF[j * w + i], "i=" + i + " j=" + j);
+            }
+        }
+    }
+}